@@ -0,0 +1,83 @@
+package com.mtn.agent.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One auction round: every agent bids on a slot, then the round is resolved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuctioneerBenchmark {
+
+  // The change log grows with every round; restarting the auction keeps memory bounded
+  private static final int ROUNDS_PER_AUCTION = 1024;
+  private static final int PATTERNS = 64;
+
+  @Param({"10", "100", "1000"})
+  int slots;
+
+  @Param({"10", "100", "1000"})
+  int agents;
+
+  private AuctioneerService auctioneer;
+  private int[][] bidSlots;
+  private int round;
+
+  @Setup
+  public void setup() {
+    SplittableRandom random = new SplittableRandom(42);
+    bidSlots = new int[PATTERNS][agents];
+    for (int[] pattern : bidSlots) {
+      for (int agent = 0; agent < agents; agent++) {
+        pattern[agent] = random.nextInt(slots);
+      }
+    }
+
+    auctioneer = new AuctioneerService();
+    auctioneer.setRoundLogging(false);
+    restart();
+  }
+
+  @Benchmark
+  public void bidAndResolve() {
+    if (++round % ROUNDS_PER_AUCTION == 0) {
+      restart();
+    }
+
+    MarketView market = auctioneer.view();
+    int[] pattern = bidSlots[round % PATTERNS];
+    for (int agent = 0; agent < agents; agent++) {
+      int slot = pattern[agent];
+      auctioneer.receiveBid(agent, slot, market.price(slot) + 1.0);
+    }
+    auctioneer.resolveRound();
+
+    if (!auctioneer.view().isActive()) {
+      restart();
+    }
+  }
+
+  private void restart() {
+    auctioneer.init(slots, 1.0);
+    for (int agent = 0; agent < agents; agent++) {
+      auctioneer.registerAgent("bench_" + agent);
+    }
+  }
+}
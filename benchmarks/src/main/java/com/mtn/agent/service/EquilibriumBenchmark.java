@@ -0,0 +1,83 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AuctionState;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.SlotIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full Nash and Pareto analyses served by the REST API, and the incremental per-round
+ * update the simulation loop uses instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EquilibriumBenchmark {
+
+  @Param({"10", "100", "1000"})
+  int slots;
+
+  @Param({"10", "100", "1000"})
+  int agents;
+
+  private final EquilibriumAnalysisService analysis = new EquilibriumAnalysisService();
+
+  private AuctionState state;
+  private Map<String, Map<String, Double>> valuations;
+  private List<AgentService> agentList;
+  private EquilibriumTracker tracker;
+  private MarketView market;
+  private int[] changedSlots;
+
+  @Setup
+  public void setup() {
+    SimulationSession session = Fixtures.warmedUpSession(agents, slots, 42);
+    AuctioneerService auctioneer = session.getAuctioneer();
+    state = auctioneer.getState();
+    valuations = session.valuations();
+    agentList = session.getAgents();
+    market = auctioneer.view();
+    tracker = analysis.track(market, valuations, agentList);
+    changedSlots = auctioneer.getChangesSince(market.round() - 1).changedItems().stream()
+            .mapToInt(item -> SlotIds.index(item.id()))
+            .toArray();
+  }
+
+  @Benchmark
+  public EquilibriumAnalysisService.NashEquilibriumResult checkNashEquilibrium() {
+    return analysis.checkNashEquilibrium(state, valuations, agentList);
+  }
+
+  @Benchmark
+  public EquilibriumAnalysisService.ParetoEfficiencyResult calculateParetoEfficiency() {
+    return analysis.calculateParetoEfficiency(state, valuations, agentList);
+  }
+
+  /**
+   * What the simulation loop pays per round: revisiting the last round's changed slots.
+   */
+  @Benchmark
+  public EquilibriumRoundStat incrementalRound() {
+    for (int slot : changedSlots) {
+      tracker.update(market, slot);
+    }
+    return tracker.stat(market.round());
+  }
+}
@@ -0,0 +1,67 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.ScenarioData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds the objects the benchmarks measure without a CDI container. The benchmarks live in the
+ * service package so that they can reach the same package-private seams the runner uses.
+ */
+final class Fixtures {
+
+  static final String[] STRATEGIES = {"MYOPIC", "SNIPER", "BUDGET", "BUNDLE", "FLEXIBLE"};
+  static final String[] VALUATIONS = {"RICH", "POOR", "RANDOM", "FOCUSED", "FLEXIBLE_PAIR"};
+
+  private Fixtures() {
+  }
+
+  /**
+   * The built-in strategies, registered by hand in place of CDI discovery.
+   */
+  static StrategyRegistry strategies() {
+    return StrategyRegistry.of(new MyopicStrategy(), new BudgetConstrainedStrategy(), new SniperStrategy(),
+            new BundleStrategy(), new FlexibleStrategy());
+  }
+
+  static SimulationRunner runner() {
+    SimulationRunner runner = new SimulationRunner();
+    runner.valGenerator = new ValuationGenerator();
+    runner.equilibriumAnalysisService = new EquilibriumAnalysisService();
+    runner.strategyRegistry = strategies();
+    runner.parallelDecideEnabled = false;
+    runner.eventDrivenEnabled = true;
+    runner.earlyTerminationEnabled = true;
+    runner.metrics = new AuctionMetrics();
+    runner.metrics.registry = new SimpleMeterRegistry();
+    runner.runArchive = new RunArchive();
+    return runner;
+  }
+
+  /**
+   * A scenario cycling through every strategy and valuation type, as a mixed market would.
+   */
+  static ScenarioData scenario(int agents, int slots, int maxRounds) {
+    List<AgentData> configs = new ArrayList<>(agents);
+    for (int i = 0; i < agents; i++) {
+      double budget = i % STRATEGIES.length == 2 ? 40.0 : -1.0;
+      configs.add(new AgentData((long) i, "bench_" + i, STRATEGIES[i % STRATEGIES.length],
+              VALUATIONS[(i / STRATEGIES.length) % VALUATIONS.length], -1, budget));
+    }
+    return new ScenarioData(0L, "benchmark", slots, maxRounds, 1.0, configs);
+  }
+
+  /**
+   * A session whose auction has run a few rounds, so prices and winners are not all at zero.
+   */
+  static SimulationSession warmedUpSession(int agents, int slots, long seed) {
+    SimulationRunner runner = runner();
+    SimulationSession session = runner.prepareReplication(scenario(agents, slots, 5), new SplittableRandom(seed));
+    runner.run(session, SimulationMode.BATCH, false);
+    return session;
+  }
+}
@@ -0,0 +1,53 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.ScenarioData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A complete batch run of up to 50 rounds, from agent setup to the last equilibrium statistic.
+ * Each invocation draws fresh valuations from the next seed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+  @Param({"10", "100", "1000"})
+  int slots;
+
+  @Param({"10", "100", "1000"})
+  int agents;
+
+  private SimulationRunner runner;
+  private ScenarioData scenario;
+  private long seed;
+
+  @Setup
+  public void setup() {
+    runner = Fixtures.runner();
+    scenario = Fixtures.scenario(agents, slots, 50);
+  }
+
+  @Benchmark
+  public int run() {
+    SimulationSession session = runner.prepareReplication(scenario, new SplittableRandom(seed++));
+    runner.run(session, SimulationMode.BATCH, false);
+    return session.statsLog().size();
+  }
+}
@@ -0,0 +1,55 @@
+package com.mtn.agent.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single bidding decision against a market that has already seen a few rounds of trading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyBenchmark {
+
+  @Param({"MYOPIC", "BUDGET", "SNIPER", "BUNDLE", "FLEXIBLE"})
+  String strategyType;
+
+  @Param({"10", "100", "1000"})
+  int slots;
+
+  private BiddingStrategy strategy;
+  private MarketView market;
+  private BidderProfile bidder;
+
+  @Setup
+  public void setup() {
+    SimulationSession session = Fixtures.warmedUpSession(100, slots, 42);
+    market = session.getAuctioneer().view();
+
+    // Agent 0 takes part in the market, so the strategies see slots it already holds
+    SlotValuations valuations = new ValuationGenerator().generate("RANDOM", slots, -1, new SplittableRandom(7));
+    bidder = new BidderProfile(0, session.getAgents().get(0).getAgentId(), valuations, 40.0);
+
+    strategy = Fixtures.strategies().require(strategyType);
+  }
+
+  @Benchmark
+  public SlotBid decide() {
+    return strategy.decide(market, bidder);
+  }
+}
@@ -0,0 +1,44 @@
+package com.mtn.agent.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValuationBenchmark {
+
+  @Param({"RICH", "POOR", "FOCUSED", "BUNDLE_PAIR", "FLEXIBLE_PAIR", "RANDOM"})
+  String valuationType;
+
+  @Param({"10", "100", "1000"})
+  int slots;
+
+  private final ValuationGenerator generator = new ValuationGenerator();
+  private SplittableRandom random;
+
+  @Setup
+  public void setup() {
+    random = new SplittableRandom(42);
+  }
+
+  @Benchmark
+  public SlotValuations generate() {
+    return generator.generate(valuationType, slots, -1, random);
+  }
+}
@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+#
+# Measures what a shell script driving the batch runner pays per invocation: the wall-clock time
+# of one `batch` process running a single replication of a scenario, JVM and native.
+#
+#   per_call_ms   median wall-clock time of one invocation, startup and shutdown included
+#   calls_per_h   invocations an hour at that rate, one at a time
+#
+# Build the artifacts first (see startup-benchmark.sh). The batch command also reports its own
+# startup and per-run time on stderr; that output is kept in the working directory on failure.
+#
+# Usage: benchmarks/startup/batch-benchmark.sh [iterations] [scenario.json]
+#
+set -euo pipefail
+
+ITERATIONS=${1:-20}
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+SCENARIO=${2:-}
+JVM_JAR="$ROOT/target/quarkus-app/quarkus-run.jar"
+NATIVE_BIN=$(ls "$ROOT"/target/*-runner 2>/dev/null | head -n 1 || true)
+WORK=$(mktemp -d)
+
+if [[ -n "$SCENARIO" ]]; then
+  SOURCE=(--scenario "$SCENARIO")
+else
+  SOURCE=(--scenario-id 1)
+fi
+
+now_ms() {
+  date +%s%3N
+}
+
+report() {
+  local name=$1
+  shift
+  local times=()
+  for ((i = 0; i < ITERATIONS; i++)); do
+    local start
+    start=$(now_ms)
+    if ! QUARKUS_PROFILE=batch "$@" batch "${SOURCE[@]}" --runs 1 --seed "$i" \
+        --output "$WORK/out.csv" 2>"$WORK/$name.log"; then
+      echo "$name: batch run failed, see $WORK/$name.log" >&2
+      exit 1
+    fi
+    times+=($(( $(now_ms) - start )))
+  done
+  local median
+  median=$(printf '%s\n' "${times[@]}" | sort -n | sed -n "$(( (ITERATIONS + 1) / 2 ))p")
+  printf "%-8s %12s %12s\n" "$name" "$median" "$(( 3600000 / (median > 0 ? median : 1) ))"
+}
+
+echo "median of $ITERATIONS invocations, one replication each"
+printf "%-8s %12s %12s\n" build per_call_ms calls_per_h
+if [[ -f "$JVM_JAR" ]]; then
+  report jvm java -jar "$JVM_JAR"
+else
+  echo "jvm: $JVM_JAR not found, skipped" >&2
+fi
+if [[ -n "$NATIVE_BIN" ]]; then
+  report native "$NATIVE_BIN"
+else
+  echo "native: no target/*-runner found, skipped" >&2
+fi
+rm -rf "$WORK"
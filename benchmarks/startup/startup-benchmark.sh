@@ -0,0 +1,97 @@
+#!/usr/bin/env bash
+#
+# Compares startup time and memory of the JVM and native builds of the application.
+#
+# Each run starts the application on a fresh data directory and measures:
+#   ready_ms   wall-clock time until /q/health/ready answers 200
+#   rss_mb     resident set size once ready
+#   job_ms     one Monte Carlo batch of scenario 1 (RUNS replications)
+#   peak_mb    peak resident set size after the batch
+#
+# Build the artifacts first, from the repository root:
+#   ./mvnw package                     # target/quarkus-app/quarkus-run.jar
+#   ./mvnw package -Dnative            # target/*-runner
+#
+# Usage: benchmarks/startup/startup-benchmark.sh [iterations]    (Linux only: reads /proc)
+#
+set -euo pipefail
+
+ITERATIONS=${1:-5}
+RUNS=${RUNS:-1000}
+PORT=${PORT:-18080}
+ROOT=$(cd "$(dirname "$0")/../.." && pwd)
+JVM_JAR="$ROOT/target/quarkus-app/quarkus-run.jar"
+NATIVE_BIN=$(ls "$ROOT"/target/*-runner 2>/dev/null | head -n 1 || true)
+
+now_ms() {
+  date +%s%3N
+}
+
+rss_mb() {
+  awk -v key="$2" '$1 == key":" { printf "%.1f", $2 / 1024 }' "/proc/$1/status"
+}
+
+run_once() {
+  local data
+  data=$(mktemp -d)
+  local start
+  start=$(now_ms)
+  QUARKUS_HTTP_PORT="$PORT" \
+  AUCTION_ARCHIVE_DIR="$data/runs" \
+  AUCTION_SCENARIOS_STORE_DIR="$data/scenarios" \
+    "$@" >"$data/app.log" 2>&1 &
+  local pid=$!
+
+  until curl -sf -o /dev/null "http://localhost:$PORT/q/health/ready"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "application exited during startup, see $data/app.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  local ready=$(( $(now_ms) - start ))
+  local rss
+  rss=$(rss_mb "$pid" VmRSS)
+
+  local job_start
+  job_start=$(now_ms)
+  curl -sf -o /dev/null -X POST "http://localhost:$PORT/api/simulation/montecarlo/1?runs=$RUNS&seed=42"
+  local job=$(( $(now_ms) - job_start ))
+  local peak
+  peak=$(rss_mb "$pid" VmHWM)
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -rf "$data"
+  echo "$ready $rss $job $peak"
+}
+
+report() {
+  local name=$1
+  shift
+  local results=()
+  local result
+  for ((i = 0; i < ITERATIONS; i++)); do
+    result=$(run_once "$@") || exit 1
+    results+=("$result")
+  done
+  local middle=$(( (ITERATIONS + 1) / 2 ))
+  local medians=()
+  for column in 1 2 3 4; do
+    medians+=("$(printf '%s\n' "${results[@]}" | cut -d ' ' -f "$column" | sort -n | sed -n "${middle}p")")
+  done
+  printf "%-8s %10s %10s %10s %10s\n" "$name" "${medians[@]}"
+}
+
+echo "median of $ITERATIONS runs, Monte Carlo batch of $RUNS replications"
+printf "%-8s %10s %10s %10s %10s\n" build ready_ms rss_mb job_ms peak_mb
+if [[ -f "$JVM_JAR" ]]; then
+  report jvm java -jar "$JVM_JAR"
+else
+  echo "jvm: $JVM_JAR not found, skipped" >&2
+fi
+if [[ -n "$NATIVE_BIN" ]]; then
+  report native "$NATIVE_BIN"
+else
+  echo "native: no target/*-runner found, skipped" >&2
+fi
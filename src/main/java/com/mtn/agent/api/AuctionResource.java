@@ -1,44 +1,218 @@
 package com.mtn.agent.api;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mtn.agent.domain.AuctionState;
 import com.mtn.agent.domain.Bid;
+import com.mtn.agent.domain.BidBatchResult;
+import com.mtn.agent.domain.BidStatus;
+import com.mtn.agent.service.AuctionMetrics;
 import com.mtn.agent.service.AuctioneerService;
+import com.mtn.agent.service.SessionRegistry;
+import com.mtn.agent.service.SimulationSession;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 
 @Path("auction")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
 public class AuctionResource {
 
+  static final String NDJSON = "application/x-ndjson";
+
+  @Inject
+  SessionRegistry sessionRegistry;
+
+  @Inject
+  ObjectMapper objectMapper;
+
   @Inject
-  AuctioneerService auctioneer;
+  AuctionMetrics metrics;
 
   @GET
-  public AuctionState getState() {
-    return auctioneer.getState();
+  public Response getState(@QueryParam("sessionId") Long sessionId,
+                           @QueryParam("sinceRound") Integer sinceRound) {
+    return withSession(sessionId, session -> sinceRound == null
+            ? Response.ok(session.getAuctioneer().getState()).build()
+            : Response.ok(session.getAuctioneer().getChangesSince(sinceRound)).build());
   }
 
   @POST
   @Path("/bid")
-  public void submitBid(Bid bid) {
-    auctioneer.receiveBid(bid);
+  public Response submitBid(@QueryParam("sessionId") Long sessionId, Bid bid) {
+    return withManualSession(sessionId, session -> {
+      session.getAuctioneer().receiveBid(bid);
+      return Response.noContent().build();
+    });
+  }
+
+  /**
+   * Submits many bids in one request. Each bid is validated and recorded as it is read; the
+   * response reports per bid, by position, whether it was accepted.
+   */
+  @POST
+  @Path("/bids")
+  public Response submitBids(@QueryParam("sessionId") Long sessionId, List<Bid> bids) {
+    if (bids == null) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "Expected a JSON array of bids"))
+              .build();
+    }
+    return withManualSession(sessionId, session -> {
+      AuctioneerService auctioneer = session.getAuctioneer();
+      List<BidStatus> statuses = new ArrayList<>(bids.size());
+      for (int i = 0; i < bids.size(); i++) {
+        statuses.add(auctioneer.receiveBid(i, bids.get(i)));
+      }
+      return Response.ok(summarize(statuses)).build();
+    });
+  }
+
+  /**
+   * Same as {@link #submitBids(Long, List)} for a newline-delimited stream of bids, which is
+   * consumed line by line instead of being buffered as a whole.
+   */
+  @POST
+  @Path("/bids")
+  @Consumes(NDJSON)
+  public Response submitBidStream(@QueryParam("sessionId") Long sessionId, InputStream body) {
+    return withManualSession(sessionId, session -> {
+      AuctioneerService auctioneer = session.getAuctioneer();
+      List<BidStatus> statuses = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.isBlank()) continue;
+          int position = statuses.size();
+          try {
+            statuses.add(auctioneer.receiveBid(position, objectMapper.readValue(line, Bid.class)));
+          } catch (JsonProcessingException e) {
+            statuses.add(new BidStatus(position, false, "malformed bid"));
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return Response.ok(summarize(statuses)).build();
+    });
   }
 
   @POST
   @Path("init")
-  public void init() {
-    auctioneer.init();
+  public Response init(@QueryParam("slots") @DefaultValue("5") int slots,
+                       @QueryParam("epsilon") @DefaultValue("1.0") double epsilon) {
+    if (slots <= 0 || !(epsilon > 0)) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "slots and epsilon must be positive"))
+              .build();
+    }
+    SimulationSession session = sessionRegistry.create(null, Integer.MAX_VALUE);
+    try {
+      session.getAuctioneer().init(slots, epsilon);
+      session.getAuctioneer().setMeters(metrics.auctioneer(null));
+    } catch (RuntimeException e) {
+      sessionRegistry.discard(session);
+      throw e;
+    }
+    sessionRegistry.registerManual(session);
+    return Response.status(Response.Status.CREATED)
+            .entity(Map.of("sessionId", session.getId()))
+            .build();
+  }
+
+  /**
+   * Ends a session started with {@code init} and drops it. Sessions running a simulation are
+   * left to finish.
+   */
+  @DELETE
+  public Response close(@QueryParam("sessionId") Long sessionId) {
+    if (sessionId == null) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "sessionId is required"))
+              .build();
+    }
+    Optional<SimulationSession> session = sessionRegistry.getSession(sessionId);
+    if (session.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Auction session not found"))
+              .build();
+    }
+    if (!session.get().isManual() && session.get().isRunning()) {
+      return Response.status(Response.Status.CONFLICT)
+              .entity(Map.of("error", "Session " + sessionId + " is running a simulation"))
+              .build();
+    }
+    sessionRegistry.remove(sessionId);
+    return Response.noContent().build();
   }
 
   @POST
   @Path("/resolve")
-  public void resolve() {
-    auctioneer.resolveRound();
+  public Response resolve(@QueryParam("sessionId") Long sessionId) {
+    return withManualSession(sessionId, session -> {
+      session.getAuctioneer().resolveRound();
+      AuctionState state = session.getAuctioneer().getState();
+      session.publishRound(state.round(), state.isActive(), null, null);
+      if (!state.isActive()) {
+        session.markFinished();
+      }
+      return Response.ok(state).build();
+    });
+  }
+
+  private static BidBatchResult summarize(List<BidStatus> statuses) {
+    int accepted = 0;
+    for (BidStatus status : statuses) {
+      if (status.accepted()) accepted++;
+    }
+    return new BidBatchResult(accepted, statuses.size() - accepted, statuses);
+  }
+
+  private Response withSession(Long sessionId, Function<SimulationSession, Response> action) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Auction session not found"))
+              .build();
+    }
+    return action.apply(session.get());
+  }
+
+  // Bids and round resolution from outside would run behind a simulation's own loop, so they are
+  // only taken by sessions driven by hand
+  private Response withManualSession(Long sessionId, Function<SimulationSession, Response> action) {
+    Optional<SimulationSession> session = sessionRegistry.resolveManual(sessionId);
+    if (session.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Auction session not found"))
+              .build();
+    }
+    if (!session.get().isManual()) {
+      return Response.status(Response.Status.CONFLICT)
+              .entity(Map.of("error", "Session " + session.get().getId() + " is running a simulation"))
+              .build();
+    }
+    return action.apply(session.get());
   }
 }
@@ -1,15 +1,19 @@
 package com.mtn.agent.api;
 
 import com.mtn.agent.service.EquilibriumAnalysisService;
+import com.mtn.agent.service.SessionRegistry;
 import com.mtn.agent.service.SimulationRunner;
+import com.mtn.agent.service.SimulationSession;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 
 import java.util.Map;
+import java.util.Optional;
 
 @Path("/api/equilibrium")
 @Produces(MediaType.APPLICATION_JSON)
@@ -18,14 +22,21 @@ public class EquilibriumResource {
   @Inject
   SimulationRunner simulationRunner;
 
+  @Inject
+  SessionRegistry sessionRegistry;
+
   @Inject
   EquilibriumAnalysisService equilibriumAnalysisService;
 
   @GET
   @Path("/nash")
-  public Response getNashEquilibrium() {
+  public Response getNashEquilibrium(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return sessionNotFound();
+    }
     try {
-      var result = simulationRunner.getNashEquilibriumResult();
+      var result = simulationRunner.getNashEquilibriumResult(session.get());
       return Response.ok(result).build();
     } catch (Exception e) {
       return Response.status(Response.Status.BAD_REQUEST)
@@ -36,9 +47,13 @@ public class EquilibriumResource {
 
   @GET
   @Path("/pareto")
-  public Response getParetoEfficiency() {
+  public Response getParetoEfficiency(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return sessionNotFound();
+    }
     try {
-      var result = simulationRunner.getParetoEfficiencyResult();
+      var result = simulationRunner.getParetoEfficiencyResult(session.get());
       return Response.ok(result).build();
     } catch (Exception e) {
       return Response.status(Response.Status.BAD_REQUEST)
@@ -49,10 +64,14 @@ public class EquilibriumResource {
 
   @GET
   @Path("/analysis")
-  public Response getFullAnalysis() {
+  public Response getFullAnalysis(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return sessionNotFound();
+    }
     try {
-      var nashResult = simulationRunner.getNashEquilibriumResult();
-      var paretoResult = simulationRunner.getParetoEfficiencyResult();
+      var nashResult = simulationRunner.getNashEquilibriumResult(session.get());
+      var paretoResult = simulationRunner.getParetoEfficiencyResult(session.get());
 
       return Response.ok(Map.of(
               "nash", nashResult,
@@ -64,4 +83,10 @@ public class EquilibriumResource {
               .build();
     }
   }
+
+  private Response sessionNotFound() {
+    return Response.status(Response.Status.NOT_FOUND)
+            .entity(Map.of("error", "Simulation session not found"))
+            .build();
+  }
 }
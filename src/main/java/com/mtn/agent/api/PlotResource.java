@@ -1,43 +1,78 @@
 package com.mtn.agent.api;
 
 import com.mtn.agent.service.PlotService;
-import com.mtn.agent.service.SimulationRunner;
+import com.mtn.agent.service.SessionRegistry;
+import com.mtn.agent.service.SimulationSession;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+
+import java.util.Map;
+import java.util.Optional;
 
 @Path("/plot")
 public class PlotResource {
 
   @Inject
-  SimulationRunner runner;
+  SessionRegistry sessionRegistry;
 
   @Inject
   PlotService plotService;
 
+  /**
+   * The dashboard of a session, served from the copy rendered at the session's current version.
+   * Browsers revalidate with {@code If-None-Match} and get a 304 until another round is resolved.
+   */
   @GET
   @Produces(MediaType.TEXT_HTML)
-  public String getPlot() {
+  public Response getPlot(@QueryParam("sessionId") Long sessionId, @Context Request request) {
 
-    var stats = runner.getStatsHistory();
-    var bids = runner.getBidHistory();
-    var items = runner.getFinalItems();
-    var equilibriumHistory = runner.getEquilibriumHistory();
+    Optional<SimulationSession> sessionOpt = sessionRegistry.resolve(sessionId);
 
-    if (stats == null || stats.isEmpty()) {
-      return """
+    if (sessionOpt.isEmpty() || !sessionOpt.get().hasResults()) {
+      return Response.ok("""
                    <html><body style='text-align:center; padding:50px; font-family:sans-serif;'>
                    <h1>No Data Available</h1>
                    <p>Please run a simulation first using the API <code>POST /api/simulation/run/{scenarioId}</code></p>
                    </body></html>
-                   """;
+                   """).build();
     }
 
-    var nashResult = runner.getNashEquilibriumResult();
-    var paretoResult = runner.getParetoEfficiencyResult();
+    PlotService.Dashboard dashboard = plotService.dashboard(sessionOpt.get());
+    EntityTag etag = new EntityTag(dashboard.etag());
+    CacheControl cacheControl = new CacheControl();
+    cacheControl.setNoCache(true);
+
+    Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+    if (notModified != null) {
+      return notModified.cacheControl(cacheControl).build();
+    }
+    return Response.ok(dashboard.html()).tag(etag).cacheControl(cacheControl).build();
+  }
 
-    return plotService.generateDashboard(stats, bids, items, nashResult, paretoResult, equilibriumHistory);
+  /**
+   * The rounds of a session after {@code fromRound}, which an open dashboard appends to its charts.
+   */
+  @GET
+  @Path("/data")
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getPlotData(@QueryParam("sessionId") Long sessionId,
+                              @QueryParam("fromRound") @DefaultValue("0") int fromRound) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Session not found"))
+              .build();
+    }
+    return Response.ok(plotService.rounds(session.get(), fromRound)).build();
   }
-}
\ No newline at end of file
+}
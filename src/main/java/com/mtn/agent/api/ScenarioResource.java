@@ -1,13 +1,23 @@
 package com.mtn.agent.api;
 
 import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.AgentImportResult;
 import com.mtn.agent.domain.ScenarioData;
 import com.mtn.agent.service.ScenarioService;
+import com.mtn.agent.service.ScenarioTransferService;
+import com.mtn.agent.service.StrategyRegistry;
+import com.mtn.agent.service.ValuationGenerator;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -17,9 +27,17 @@ import java.util.Optional;
 @Consumes(MediaType.APPLICATION_JSON)
 public class ScenarioResource {
 
+  static final String CSV = "text/csv";
+
   @Inject
   ScenarioService scenarioService;
 
+  @Inject
+  ScenarioTransferService transferService;
+
+  @Inject
+  StrategyRegistry strategyRegistry;
+
   @GET
   public List<ScenarioData> getAllScenarios() {
     return scenarioService.getAllScenarios();
@@ -106,6 +124,17 @@ public class ScenarioResource {
               .entity(Map.of("error", "Agent name is required"))
               .build();
     }
+    if (!strategyRegistry.isKnown(request.strategyType)) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "Unknown strategy type " + request.strategyType
+                      + " (expected one of " + strategyRegistry.names() + ")"))
+              .build();
+    }
+    if (!ValuationGenerator.isKnownType(request.valuationType)) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "Unknown valuation type " + request.valuationType))
+              .build();
+    }
 
     Optional<AgentData> agent = scenarioService.addAgent(
             scenarioId,
@@ -122,6 +151,46 @@ public class ScenarioResource {
                     .build());
   }
 
+  /**
+   * Bulk import of agents from CSV, read row by row and committed as one change. Either every
+   * row is valid and all agents are added, or nothing is and the errors are reported by line.
+   */
+  @POST
+  @Path("/{id}/agents")
+  @Consumes(CSV)
+  public Response importAgentsCsv(@PathParam("id") Long scenarioId, InputStream body) {
+    return imported(transferService.importCsv(scenarioId, new InputStreamReader(body, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Same as {@link #importAgentsCsv} for newline-delimited JSON, one agent per line.
+   */
+  @POST
+  @Path("/{id}/agents")
+  @Consumes(AuctionResource.NDJSON)
+  public Response importAgentsNdjson(@PathParam("id") Long scenarioId, InputStream body) {
+    return imported(transferService.importNdjson(scenarioId, new InputStreamReader(body, StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Streaming export of the agents as CSV or newline-delimited JSON, in the formats the import
+   * reads. Kept off {@code /agents} itself so that a client accepting anything still gets JSON there.
+   */
+  @GET
+  @Path("/{id}/agents/export")
+  @Produces({CSV, AuctionResource.NDJSON})
+  public Response exportAgents(@PathParam("id") Long scenarioId,
+                               @QueryParam("format") @DefaultValue("csv") String format) {
+    return switch (format) {
+      case "csv" -> exported(scenarioId, CSV, transferService::exportCsv);
+      case "ndjson" -> exported(scenarioId, AuctionResource.NDJSON, transferService::exportNdjson);
+      default -> Response.status(Response.Status.BAD_REQUEST)
+              .type(MediaType.APPLICATION_JSON)
+              .entity(Map.of("error", "Unknown format " + format + " (expected csv or ndjson)"))
+              .build();
+    };
+  }
+
   @DELETE
   @Path("/{scenarioId}/agents/{agentId}")
   public Response deleteAgent(@PathParam("scenarioId") Long scenarioId,
@@ -135,6 +204,36 @@ public class ScenarioResource {
 
 
 
+  private Response imported(Optional<AgentImportResult> result) {
+    if (result.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Scenario not found"))
+              .build();
+    }
+    Response.Status status = result.get().errors().isEmpty()
+            ? Response.Status.CREATED
+            : Response.Status.BAD_REQUEST;
+    return Response.status(status).entity(result.get()).build();
+  }
+
+  private Response exported(Long scenarioId, String mediaType, AgentExport export) {
+    Optional<ScenarioData> scenario = scenarioService.getScenario(scenarioId);
+    if (scenario.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .type(MediaType.APPLICATION_JSON)
+              .entity(Map.of("error", "Scenario not found"))
+              .build();
+    }
+    // The agent list is immutable, so it can be written out while the scenario keeps changing
+    List<AgentData> agents = scenario.get().agents();
+    StreamingOutput body = output -> export.write(agents, output);
+    return Response.ok(body, mediaType).build();
+  }
+
+  private interface AgentExport {
+    void write(List<AgentData> agents, OutputStream output) throws IOException;
+  }
+
   public static class CreateScenarioRequest {
     public String name;
     public int numberOfSlots;
@@ -0,0 +1,46 @@
+package com.mtn.agent.api;
+
+import com.mtn.agent.domain.RoundEvent;
+import com.mtn.agent.service.SessionRegistry;
+import com.mtn.agent.service.SimulationSession;
+import io.quarkus.websockets.next.CloseReason;
+import io.quarkus.websockets.next.OnOpen;
+import io.quarkus.websockets.next.PathParam;
+import io.quarkus.websockets.next.WebSocket;
+import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Multi;
+import jakarta.inject.Inject;
+
+import java.util.Optional;
+
+/**
+ * WebSocket variant of {@code GET /api/simulation/{sessionId}/events}: each round event is sent
+ * as a JSON text message and the socket is closed when the session finishes.
+ */
+@WebSocket(path = "/api/simulation/{sessionId}/events/ws")
+public class SimulationEventSocket {
+
+  private static final CloseReason SESSION_NOT_FOUND = new CloseReason(4404, "Simulation session not found");
+
+  @Inject
+  SessionRegistry sessionRegistry;
+
+  @OnOpen
+  public Multi<RoundEvent> onOpen(@PathParam String sessionId, WebSocketConnection connection) {
+    Optional<SimulationSession> session = parseId(sessionId).flatMap(sessionRegistry::getSession);
+    if (session.isEmpty()) {
+      return Multi.createFrom().<RoundEvent>empty()
+              .onCompletion().call(() -> connection.close(SESSION_NOT_FOUND));
+    }
+    return session.get().events()
+            .onCompletion().call(connection::close);
+  }
+
+  private static Optional<Long> parseId(String sessionId) {
+    try {
+      return Optional.of(Long.parseLong(sessionId));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+}
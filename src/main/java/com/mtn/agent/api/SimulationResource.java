@@ -1,98 +1,386 @@
 package com.mtn.agent.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.RoundEvent;
+import com.mtn.agent.domain.RunSummary;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.service.ArchivedRun;
+import com.mtn.agent.service.MonteCarloService;
+import com.mtn.agent.service.RunArchive;
 import com.mtn.agent.service.ScenarioService;
+import com.mtn.agent.service.SessionRegistry;
+import com.mtn.agent.service.SimulationMode;
 import com.mtn.agent.service.SimulationRunner;
+import com.mtn.agent.service.SimulationSession;
+import io.smallrye.mutiny.Multi;
 import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
-import org.jboss.logging.Logger;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.resteasy.reactive.RestStreamElementType;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Path("/api/simulation")
 @Produces(MediaType.APPLICATION_JSON)
 public class SimulationResource {
 
-  private static final Logger LOG = Logger.getLogger(SimulationResource.class);
-
   @Inject
   SimulationRunner simulationRunner;
 
+  @Inject
+  SessionRegistry sessionRegistry;
+
   @Inject
   ScenarioService scenarioService;
 
-  private volatile boolean isRunning = false;
+  @Inject
+  MonteCarloService monteCarloService;
+
+  @ConfigProperty(name = "auction.montecarlo.max-runs", defaultValue = "100000")
+  int maxMonteCarloRuns;
+
+  @ConfigProperty(name = "auction.results.max-page-size", defaultValue = "10000")
+  int maxPageSize;
+
+  @Inject
+  ObjectMapper objectMapper;
+
+  @Inject
+  RunArchive runArchive;
 
   @POST
   @Path("/run/{scenarioId}")
-  public Response runSimulation(@PathParam("scenarioId") Long scenarioId) {
-    if (isRunning) {
-      return Response.status(Response.Status.CONFLICT)
-              .entity(Map.of("error", "Simulation is already running"))
+  public Response runSimulation(@PathParam("scenarioId") Long scenarioId,
+                                @QueryParam("mode") String modeParam) {
+    Optional<SimulationMode> mode = SimulationMode.parse(modeParam);
+    if (mode.isEmpty()) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "Unknown mode: " + modeParam + " (expected BATCH or LIVE)"))
               .build();
     }
 
-    if (scenarioService.getScenario(scenarioId).isEmpty()) {
+    Optional<SimulationSession> prepared;
+    try {
+      prepared = simulationRunner.prepareScenario(scenarioId);
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", e.getMessage()))
+              .build();
+    }
+    if (prepared.isEmpty()) {
       return Response.status(Response.Status.NOT_FOUND)
               .entity(Map.of("error", "Scenario not found"))
               .build();
     }
 
-    isRunning = true;
+    SimulationSession session = prepared.get();
 
-    // Run simulation asynchronously
-    CompletableFuture.runAsync(() -> {
-      try {
-        simulationRunner.runInMemoryScenario(scenarioId);
-      } finally {
-        isRunning = false;
-      }
-    });
+    // Run simulation asynchronously; each session owns its auctioneer so runs proceed in parallel
+    try {
+      simulationRunner.start(session, mode.get());
+    } catch (IllegalStateException e) {
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+              .entity(Map.of("error", e.getMessage()))
+              .build();
+    }
 
     return Response.accepted()
-            .entity(Map.of("message", "Simulation started", "scenarioId", scenarioId))
+            .entity(Map.of(
+                    "message", "Simulation started",
+                    "scenarioId", scenarioId,
+                    "sessionId", session.getId(),
+                    "mode", mode.get()
+            ))
             .build();
   }
 
+  @POST
+  @Path("/montecarlo/{scenarioId}")
+  public Response runMonteCarlo(@PathParam("scenarioId") Long scenarioId,
+                                @QueryParam("runs") @DefaultValue("1000") int runs,
+                                @QueryParam("seed") Long seed) {
+    if (runs <= 0 || runs > maxMonteCarloRuns) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "runs must be between 1 and " + maxMonteCarloRuns))
+              .build();
+    }
+
+    Optional<ScenarioData> scenario = scenarioService.getScenario(scenarioId);
+    if (scenario.isEmpty()) {
+      return Response.status(Response.Status.NOT_FOUND)
+              .entity(Map.of("error", "Scenario not found"))
+              .build();
+    }
+
+    long effectiveSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+    try {
+      return Response.ok(monteCarloService.run(scenario.get(), runs, effectiveSeed)).build();
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", e.getMessage()))
+              .build();
+    }
+  }
+
+  @GET
+  @Path("/sessions")
+  public List<Map<String, Object>> getSessions() {
+    return sessionRegistry.getAllSessions().stream()
+            .map(this::summary)
+            .toList();
+  }
+
+  /**
+   * Server-sent events, one per resolved round; see {@link SimulationSession#events()}. The same
+   * stream is served over WebSocket by {@link SimulationEventSocket}.
+   */
+  @GET
+  @Path("/{sessionId}/events")
+  @Produces(MediaType.SERVER_SENT_EVENTS)
+  @RestStreamElementType(MediaType.APPLICATION_JSON)
+  public Multi<RoundEvent> streamEvents(@PathParam("sessionId") Long sessionId) {
+    return sessionRegistry.getSession(sessionId)
+            .map(SimulationSession::events)
+            .orElseThrow(() -> new NotFoundException(sessionNotFound()));
+  }
+
   @GET
   @Path("/status")
-  public Response getStatus() {
+  public Response getStatus(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      if (sessionId != null) {
+        return sessionNotFound();
+      }
+      return Response.ok(Map.of(
+              "isRunning", false,
+              "hasResults", false,
+              "activeSessions", 0L
+      )).build();
+    }
+
     return Response.ok(Map.of(
-            "isRunning", isRunning,
-            "hasResults", !simulationRunner.getStatsHistory().isEmpty()
+            "sessionId", session.get().getId(),
+            "runId", session.get().getRunId().orElse(-1L),
+            "isRunning", session.get().isRunning(),
+            "terminationReason", session.get().getTerminationReason().map(Enum::name).orElse("NONE"),
+            "hasResults", session.get().hasResults(),
+            "activeSessions", sessionRegistry.activeCount()
     )).build();
   }
 
   @GET
   @Path("/valuations")
-  public Response getValuations() {
-    if (simulationRunner.getAgentValuations().isEmpty()) {
+  public Response getValuations(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty() || session.get().getAgentValuations().isEmpty()) {
       return Response.status(Response.Status.NO_CONTENT)
               .entity(Map.of("message", "No simulation results available"))
               .build();
     }
-    return Response.ok(simulationRunner.getAgentValuations()).build();
+    return Response.ok(session.get().getAgentValuations()).build();
   }
 
   @GET
   @Path("/results")
-  public Response getResults() {
-    if (simulationRunner.getStatsHistory().isEmpty()) {
+  public Response getResults(@QueryParam("sessionId") Long sessionId) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty() || !session.get().hasResults()) {
       return Response.status(Response.Status.NO_CONTENT)
               .entity(Map.of("message", "No simulation results available"))
               .build();
     }
 
     return Response.ok(Map.of(
-            "stats", simulationRunner.getStatsHistory(),
-            "bids", simulationRunner.getBidHistory(),
-            "finalItems", simulationRunner.getFinalItems()
+            "sessionId", session.get().getId(),
+            "stats", session.get().getStatsHistory(),
+            "bids", session.get().getBidHistory(),
+            "finalItems", session.get().getFinalItems()
     )).build();
   }
+
+  /**
+   * One page of the bid history, optionally filtered. Follow {@code nextCursor} for the next page.
+   */
+  @GET
+  @Path("/results/bids")
+  public Response getBids(@QueryParam("sessionId") Long sessionId,
+                          @QueryParam("cursor") @DefaultValue("0") int cursor,
+                          @QueryParam("limit") @DefaultValue("1000") int limit,
+                          @QueryParam("fromRound") Integer fromRound,
+                          @QueryParam("toRound") Integer toRound,
+                          @QueryParam("agent") String agent,
+                          @QueryParam("item") String item) {
+    if (limit <= 0 || limit > maxPageSize) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "limit must be between 1 and " + maxPageSize))
+              .build();
+    }
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return sessionNotFound();
+    }
+    BidFilter filter = new BidFilter(fromRound, toRound, agent, item);
+    return Response.ok(session.get().getBids(cursor, limit, filter)).build();
+  }
+
+  /**
+   * The same bids as newline-delimited JSON, written to the response record by record. Without
+   * a {@code limit} the whole (filtered) history from {@code cursor} on is streamed. A path of
+   * its own, so a client accepting anything still gets pages from {@code /results/bids}.
+   */
+  @GET
+  @Path("/results/bids/stream")
+  @Produces(AuctionResource.NDJSON)
+  public Response streamBids(@QueryParam("sessionId") Long sessionId,
+                             @QueryParam("cursor") @DefaultValue("0") int cursor,
+                             @QueryParam("limit") Integer limit,
+                             @QueryParam("fromRound") Integer fromRound,
+                             @QueryParam("toRound") Integer toRound,
+                             @QueryParam("agent") String agent,
+                             @QueryParam("item") String item) {
+    Optional<SimulationSession> session = sessionRegistry.resolve(sessionId);
+    if (session.isEmpty()) {
+      return sessionNotFound();
+    }
+    BidFilter filter = new BidFilter(fromRound, toRound, agent, item);
+    int max = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+    return ndjson(sink -> session.get().scanBids(cursor, max, filter, sink));
+  }
+
+  @GET
+  @Path("/runs")
+  public List<RunSummary> getRuns() {
+    return runArchive.listRuns();
+  }
+
+  @GET
+  @Path("/runs/{runId}")
+  public Response getRun(@PathParam("runId") long runId) {
+    return withRun(runId, run -> Response.ok(run.summary()).build());
+  }
+
+  @GET
+  @Path("/runs/{runId}/stats")
+  public Response getRunStats(@PathParam("runId") long runId) {
+    return withRun(runId, run -> Response.ok(run.stats()).build());
+  }
+
+  @GET
+  @Path("/runs/{runId}/equilibrium")
+  public Response getRunEquilibrium(@PathParam("runId") long runId) {
+    return withRun(runId, run -> Response.ok(run.equilibrium()).build());
+  }
+
+  @GET
+  @Path("/runs/{runId}/items")
+  public Response getRunItems(@PathParam("runId") long runId) {
+    return withRun(runId, run -> Response.ok(run.finalItems()).build());
+  }
+
+  /**
+   * A page of an archived run's bids; same parameters as {@code /results/bids}.
+   */
+  @GET
+  @Path("/runs/{runId}/bids")
+  public Response getRunBids(@PathParam("runId") long runId,
+                             @QueryParam("cursor") @DefaultValue("0") int cursor,
+                             @QueryParam("limit") @DefaultValue("1000") int limit,
+                             @QueryParam("fromRound") Integer fromRound,
+                             @QueryParam("toRound") Integer toRound,
+                             @QueryParam("agent") String agent,
+                             @QueryParam("item") String item) {
+    if (limit <= 0 || limit > maxPageSize) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "limit must be between 1 and " + maxPageSize))
+              .build();
+    }
+    BidFilter filter = new BidFilter(fromRound, toRound, agent, item);
+    return withRun(runId, run -> Response.ok(run.getBids(cursor, limit, filter)).build());
+  }
+
+  /**
+   * An archived run's bids as newline-delimited JSON; same parameters as {@code /results/bids/stream}.
+   */
+  @GET
+  @Path("/runs/{runId}/bids/stream")
+  @Produces(AuctionResource.NDJSON)
+  public Response streamRunBids(@PathParam("runId") long runId,
+                                @QueryParam("cursor") @DefaultValue("0") int cursor,
+                                @QueryParam("limit") Integer limit,
+                                @QueryParam("fromRound") Integer fromRound,
+                                @QueryParam("toRound") Integer toRound,
+                                @QueryParam("agent") String agent,
+                                @QueryParam("item") String item) {
+    BidFilter filter = new BidFilter(fromRound, toRound, agent, item);
+    int max = limit != null && limit > 0 ? limit : Integer.MAX_VALUE;
+    return withRun(runId, run -> ndjson(sink -> run.scanBids(cursor, max, filter, sink)));
+  }
+
+  // Writes whatever the scan hands over as newline-delimited JSON, record by record
+  private Response ndjson(Consumer<Consumer<BidRecord>> scan) {
+    StreamingOutput body = output -> {
+      OutputStream out = new BufferedOutputStream(output, 64 * 1024);
+      try {
+        scan.accept(bid -> {
+          try {
+            out.write(objectMapper.writeValueAsBytes(bid));
+            out.write('\n');
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      out.flush();
+    };
+    return Response.ok(body, AuctionResource.NDJSON).build();
+  }
+
+  private Response withRun(long runId, Function<ArchivedRun, Response> action) {
+    return runArchive.getRun(runId)
+            .map(action)
+            .orElseGet(() -> Response.status(Response.Status.NOT_FOUND)
+                    .entity(Map.of("error", "Archived run not found"))
+                    .build());
+  }
+
+  private Map<String, Object> summary(SimulationSession session) {
+    return Map.<String, Object>of(
+            "sessionId", session.getId(),
+            "scenarioId", session.getScenarioId() != null ? session.getScenarioId() : -1L,
+            "runId", session.getRunId().orElse(-1L),
+            "isRunning", session.isRunning(),
+            "terminationReason", session.getTerminationReason().map(Enum::name).orElse("NONE"),
+            "hasResults", session.hasResults()
+    );
+  }
+
+  private Response sessionNotFound() {
+    return Response.status(Response.Status.NOT_FOUND)
+            .entity(Map.of("error", "Simulation session not found"))
+            .build();
+  }
 }
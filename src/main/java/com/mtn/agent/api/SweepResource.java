@@ -0,0 +1,109 @@
+package com.mtn.agent.api;
+
+import com.mtn.agent.domain.SweepRequest;
+import com.mtn.agent.service.SweepService;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Parameter sweeps over a scenario. A sweep is started with {@code POST}, runs in the background
+ * and is followed by polling its status; its result table grows as cells finish.
+ */
+@Path("api/sweeps")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class SweepResource {
+
+  @Inject
+  SweepService sweepService;
+
+  @POST
+  public Response startSweep(SweepRequest request) {
+    if (request == null || request.scenarioId() == null) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", "scenarioId is required"))
+              .build();
+    }
+
+    try {
+      Optional<SweepService.SweepStatus> status = sweepService.start(request);
+      if (status.isEmpty()) {
+        return Response.status(Response.Status.NOT_FOUND)
+                .entity(Map.of("error", "Scenario not found"))
+                .build();
+      }
+      return Response.accepted().entity(status.get()).build();
+    } catch (IllegalArgumentException e) {
+      return Response.status(Response.Status.BAD_REQUEST)
+              .entity(Map.of("error", e.getMessage()))
+              .build();
+    } catch (IllegalStateException e) {
+      return Response.status(Response.Status.SERVICE_UNAVAILABLE)
+              .entity(Map.of("error", e.getMessage()))
+              .build();
+    }
+  }
+
+  @GET
+  public List<SweepService.SweepStatus> getSweeps() {
+    return sweepService.getSweeps();
+  }
+
+  @GET
+  @Path("/{id}")
+  public Response getSweep(@PathParam("id") Long sweepId) {
+    return found(sweepService.getStatus(sweepId));
+  }
+
+  /**
+   * One row per finished cell, in cell order.
+   */
+  @GET
+  @Path("/{id}/results")
+  public Response getResults(@PathParam("id") Long sweepId) {
+    return found(sweepService.getResults(sweepId));
+  }
+
+  /**
+   * The same rows as CSV, on a path of its own so that {@code /results} stays JSON for any client.
+   */
+  @GET
+  @Path("/{id}/results.csv")
+  @Produces(ScenarioResource.CSV)
+  public Response getResultsCsv(@PathParam("id") Long sweepId) {
+    Optional<List<SweepService.SweepRow>> rows = sweepService.getResults(sweepId);
+    if (rows.isEmpty()) {
+      return notFound();
+    }
+    StreamingOutput body = output -> sweepService.exportCsv(rows.get(), output);
+    return Response.ok(body, ScenarioResource.CSV).build();
+  }
+
+  /**
+   * Cancels a sweep. The cells it has finished stay available.
+   */
+  @DELETE
+  @Path("/{id}")
+  public Response cancelSweep(@PathParam("id") Long sweepId) {
+    return found(sweepService.cancel(sweepId));
+  }
+
+  private static Response found(Optional<?> entity) {
+    return entity.map(e -> Response.ok(e).build()).orElseGet(SweepResource::notFound);
+  }
+
+  private static Response notFound() {
+    // Typed explicitly, as the CSV endpoint returns it too
+    return Response.status(Response.Status.NOT_FOUND)
+            .type(MediaType.APPLICATION_JSON)
+            .entity(Map.of("error", "Sweep not found"))
+            .build();
+  }
+}
@@ -0,0 +1,35 @@
+package com.mtn.agent.cli;
+
+import io.quarkus.runtime.Quarkus;
+import io.quarkus.runtime.QuarkusApplication;
+import io.quarkus.runtime.annotations.QuarkusMain;
+import jakarta.inject.Inject;
+
+import java.util.Arrays;
+
+/**
+ * The application's entry point. Without arguments it serves the API until shut down, as it
+ * always has; with {@code batch} as the first argument it runs {@link BatchCommand} and exits
+ * with its status. Batch runs are best started with the {@code batch} profile, which keeps the
+ * HTTP listener, the run archive and the scenario store closed.
+ */
+@QuarkusMain
+public class AuctionMain implements QuarkusApplication {
+
+  @Inject
+  BatchCommand batchCommand;
+
+  @Override
+  public int run(String... args) {
+    if (args.length > 0 && args[0].equals(BatchCommand.NAME)) {
+      return batchCommand.run(Arrays.asList(args).subList(1, args.length));
+    }
+    if (args.length > 0) {
+      System.err.println("unknown command " + args[0] + "; run without arguments to serve the API, or with "
+              + BatchCommand.NAME + " for a batch run");
+      return BatchCommand.USAGE;
+    }
+    Quarkus.waitForExit();
+    return 0;
+  }
+}
@@ -0,0 +1,239 @@
+package com.mtn.agent.cli;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.service.BatchService;
+import com.mtn.agent.service.ScenarioService;
+import com.mtn.agent.service.ValuationGenerator;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@code batch} command: runs replications of a scenario in-process and streams every round
+ * and the final allocation of each to a file. Messages and the timing summary go to stderr.
+ *
+ * <pre>
+ * batch (--scenario FILE | --scenario-id ID) --output FILE
+ *       [--format csv|binary] [--runs N] [--seed S] [--parallelism N]
+ *       [--slots N] [--max-rounds N] [--epsilon X]
+ * </pre>
+ *
+ * The scenario file is a scenario as {@code GET /api/scenarios/{id}} returns it; the last three
+ * options override its parameters. Exit status is 0 on success, 1 if the run failed and 2 for
+ * bad arguments.
+ */
+@ApplicationScoped
+public class BatchCommand {
+
+  static final String NAME = "batch";
+
+  static final int OK = 0;
+  static final int FAILED = 1;
+  static final int USAGE = 2;
+
+  private static final String USAGE_TEXT = """
+          usage: batch (--scenario FILE | --scenario-id ID) --output FILE
+                       [--format csv|binary] [--runs N] [--seed S] [--parallelism N]
+                       [--slots N] [--max-rounds N] [--epsilon X]""";
+
+  private static final List<String> OPTIONS = List.of("scenario", "scenario-id", "output", "format", "runs", "seed",
+          "parallelism", "slots", "max-rounds", "epsilon");
+
+  @Inject
+  BatchService batchService;
+
+  @Inject
+  ScenarioService scenarioService;
+
+  @Inject
+  ObjectMapper objectMapper;
+
+  private final PrintStream err = System.err;
+
+  public int run(List<String> args) {
+    Optional<Long> startup = startupMillis();
+    long commandStart = System.nanoTime();
+    try {
+      Map<String, String> options = parse(args);
+
+      ScenarioData scenario = withOverrides(loadScenario(options), options);
+      checkScenario(scenario);
+
+      int runs = intOption(options, "runs", 1);
+      int parallelism = intOption(options, "parallelism", Runtime.getRuntime().availableProcessors());
+      long seed = options.containsKey("seed")
+              ? longOption(options, "seed")
+              : ThreadLocalRandom.current().nextLong();
+      if (runs <= 0) throw new IllegalArgumentException("--runs must be positive");
+      if (parallelism <= 0) throw new IllegalArgumentException("--parallelism must be positive");
+
+      String output = options.get("output");
+      if (output == null) throw new IllegalArgumentException("--output is required");
+      String format = options.getOrDefault("format", output.endsWith(".bin") ? "binary" : "csv");
+      if (!format.equals("csv") && !format.equals("binary")) {
+        throw new IllegalArgumentException("unknown format " + format);
+      }
+
+      long runStart = System.nanoTime();
+      try (OutputStream file = Files.newOutputStream(Path.of(output));
+           BatchWriter writer = format.equals("csv") ? new CsvBatchWriter(file) : new BinaryBatchWriter(file)) {
+        batchService.run(scenario, runs, seed, parallelism, replication -> {
+          try {
+            writer.write(replication);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+      }
+      long runNanos = System.nanoTime() - runStart;
+
+      err.printf("batch: %d runs of scenario %s (seed %d, %d threads) in %d ms, %.3f ms per run, %.0f runs/s%n",
+              runs, scenario.name(), seed, parallelism, runNanos / 1_000_000,
+              runNanos / 1e6 / runs, runs / (runNanos / 1e9));
+      long setupMs = (runStart - commandStart) / 1_000_000;
+      startup.ifPresent(ms -> err.printf("batch: startup %d ms, setup %d ms%n", ms, setupMs));
+      return OK;
+    } catch (IllegalArgumentException e) {
+      err.println("batch: " + e.getMessage());
+      err.println(USAGE_TEXT);
+      return USAGE;
+    } catch (IOException | UncheckedIOException e) {
+      err.println("batch: " + e.getMessage());
+      return FAILED;
+    } catch (IllegalStateException e) {
+      err.println("batch: " + e.getMessage() + (e.getCause() != null ? ": " + e.getCause() : ""));
+      return FAILED;
+    }
+  }
+
+  private static Map<String, String> parse(List<String> args) {
+    Map<String, String> options = new HashMap<>();
+    for (int i = 0; i < args.size(); i++) {
+      String arg = args.get(i);
+      String name = arg.startsWith("--") ? arg.substring(2) : null;
+      if (name == null || !OPTIONS.contains(name)) {
+        throw new IllegalArgumentException("unknown argument " + arg);
+      }
+      if (i + 1 == args.size()) {
+        throw new IllegalArgumentException(arg + " needs a value");
+      }
+      options.put(name, args.get(++i));
+    }
+    return options;
+  }
+
+  private ScenarioData loadScenario(Map<String, String> options) throws IOException {
+    String file = options.get("scenario");
+    String id = options.get("scenario-id");
+    if ((file == null) == (id == null)) {
+      throw new IllegalArgumentException("give exactly one of --scenario and --scenario-id");
+    }
+    if (id != null) {
+      long scenarioId = longOption(options, "scenario-id");
+      return scenarioService.getScenario(scenarioId)
+              .orElseThrow(() -> new IllegalArgumentException("scenario " + scenarioId + " not found"));
+    }
+
+    ScenarioData scenario;
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(Path.of(file)))) {
+      scenario = objectMapper.readValue(in, ScenarioData.class);
+    }
+    if (scenario == null) throw new IllegalArgumentException(file + " holds no scenario");
+
+    // A file without agents is left for checkScenario to reject. Agents written by hand may have
+    // no ids; replications derive agent ids from them
+    List<AgentData> listed = scenario.agents() != null ? scenario.agents() : List.of();
+    List<AgentData> agents = new ArrayList<>(listed.size());
+    long nextId = 1;
+    for (AgentData agent : listed) {
+      if (agent == null) throw new IllegalArgumentException(file + " lists an empty agent");
+      Long agentId = agent.id() != null ? agent.id() : nextId;
+      nextId = Math.max(nextId, agentId) + 1;
+      agents.add(new AgentData(agentId, agent.agentName(), agent.strategyType(), agent.valuationType(),
+              agent.targetSlot(), agent.budgetLimit()));
+    }
+    return new ScenarioData(scenario.id(), scenario.name() != null ? scenario.name() : file,
+            scenario.numberOfSlots(), scenario.maxRounds(), scenario.epsilon(), agents);
+  }
+
+  private static ScenarioData withOverrides(ScenarioData scenario, Map<String, String> options) {
+    int slots = intOption(options, "slots", scenario.numberOfSlots());
+    int maxRounds = intOption(options, "max-rounds", scenario.maxRounds());
+    double epsilon = options.containsKey("epsilon")
+            ? doubleOption(options, "epsilon")
+            : scenario.epsilon();
+    return new ScenarioData(scenario.id(), scenario.name(), slots, maxRounds, epsilon, scenario.agents());
+  }
+
+  // Strategies are checked by the batch service; the rest would only fail halfway through a run
+  private static void checkScenario(ScenarioData scenario) {
+    if (scenario.numberOfSlots() <= 0) throw new IllegalArgumentException("the scenario needs at least one slot");
+    if (scenario.maxRounds() <= 0) throw new IllegalArgumentException("the scenario needs at least one round");
+    // With no increment, over-demand never raises a price and every run lasts maxRounds
+    if (!(scenario.epsilon() > 0) || !Double.isFinite(scenario.epsilon())) {
+      throw new IllegalArgumentException("epsilon must be positive, got " + scenario.epsilon());
+    }
+    if (scenario.agents().isEmpty()) throw new IllegalArgumentException("the scenario has no agents");
+    for (AgentData agent : scenario.agents()) {
+      if (agent.agentName() == null || agent.agentName().isBlank()) {
+        throw new IllegalArgumentException("agent " + agent.id() + " has no name");
+      }
+      if (!ValuationGenerator.isKnownType(agent.valuationType())) {
+        throw new IllegalArgumentException("unknown valuationType " + agent.valuationType()
+                + " for agent " + agent.agentName());
+      }
+    }
+  }
+
+  // From process start to the command being called, JVM and Quarkus boot included
+  private static Optional<Long> startupMillis() {
+    return ProcessHandle.current().info().startInstant()
+            .map(start -> Duration.between(start, Instant.now()).toMillis());
+  }
+
+  private static int intOption(Map<String, String> options, String name, int defaultValue) {
+    String value = options.get(name);
+    if (value == null) return defaultValue;
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("--" + name + " must be an integer, not " + value);
+    }
+  }
+
+  private static long longOption(Map<String, String> options, String name) {
+    String value = options.get(name);
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("--" + name + " must be an integer, not " + value);
+    }
+  }
+
+  private static double doubleOption(Map<String, String> options, String name) {
+    String value = options.get(name);
+    try {
+      return Double.parseDouble(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("--" + name + " must be a number, not " + value);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.mtn.agent.cli;
+
+import com.mtn.agent.service.BatchService;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams the replications of a batch run to an output file, one replication at a time.
+ */
+interface BatchWriter extends Closeable {
+
+  void write(BatchService.Replication replication) throws IOException;
+}
@@ -0,0 +1,82 @@
+package com.mtn.agent.cli;
+
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.service.BatchService;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes a batch in a compact big-endian format, meant to be read back with
+ * {@link java.io.DataInputStream}. The file starts with the int {@link #MAGIC} and the short
+ * {@link #VERSION}, followed by records, each a tag byte and its fields:
+ * <ul>
+ *   <li>{@code 'R'} round: int run, int round, int bids, double revenue, boolean nash,
+ *       int agentsWhoCanImprove, double paretoEfficiency, double socialWelfare</li>
+ *   <li>{@code 'A'} allocation: int run, UTF item, UTF winner (empty if unsold), double price</li>
+ *   <li>{@code 'S'} end of run: int run, int rounds, long elapsedNanos, UTF termination reason</li>
+ * </ul>
+ * Strings are in {@link DataOutputStream#writeUTF} form: an unsigned short byte count, then modified
+ * UTF-8. Records differ in length, so a reader takes them one at a time and lets the tag say which
+ * fields follow. In Python, for instance, an {@code 'R'} record is the 41 bytes after its tag, to be
+ * unpacked with {@code struct.unpack(">iiid?idd", ...)}; {@code 'A'} and {@code 'S'} records hold
+ * strings, so each string's length has to be read before the string itself.
+ */
+final class BinaryBatchWriter implements BatchWriter {
+
+  static final int MAGIC = 0x41554342; // "AUCB"
+  static final short VERSION = 1;
+
+  private final DataOutputStream out;
+
+  BinaryBatchWriter(OutputStream output) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+  }
+
+  @Override
+  public void write(BatchService.Replication replication) throws IOException {
+    int run = replication.run();
+    List<RoundStat> rounds = replication.rounds();
+    List<EquilibriumRoundStat> equilibrium = replication.equilibrium();
+
+    for (int i = 0; i < rounds.size(); i++) {
+      RoundStat stat = rounds.get(i);
+      EquilibriumRoundStat eq = equilibrium.get(i);
+      out.writeByte('R');
+      out.writeInt(run);
+      out.writeInt(stat.round());
+      out.writeInt(stat.totalBids());
+      out.writeDouble(stat.revenue());
+      out.writeBoolean(eq.isNashEquilibrium());
+      out.writeInt(eq.agentsWhoCanImprove());
+      out.writeDouble(eq.paretoEfficiencyRatio());
+      out.writeDouble(eq.socialWelfare());
+    }
+
+    for (AuctionItem item : replication.allocation()) {
+      out.writeByte('A');
+      out.writeInt(run);
+      out.writeUTF(item.id());
+      out.writeUTF(item.currentWinner() == null ? "" : item.currentWinner());
+      out.writeDouble(item.price());
+    }
+
+    out.writeByte('S');
+    out.writeInt(run);
+    out.writeInt(rounds.size());
+    out.writeLong(replication.elapsedNanos());
+    out.writeUTF(replication.termination().name());
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -0,0 +1,104 @@
+package com.mtn.agent.cli;
+
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.service.BatchService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes a batch as one CSV table in long form. The {@code record} column says what a line holds
+ * and only that record's columns are filled:
+ * <ul>
+ *   <li>{@code round}: run, round, bids, revenue, nash, agentsWhoCanImprove, paretoEfficiency, socialWelfare</li>
+ *   <li>{@code allocation}: run, item, winner (empty if unsold), price</li>
+ *   <li>{@code run}: run, round (the number of rounds played), elapsedMicros, termination</li>
+ * </ul>
+ */
+final class CsvBatchWriter implements BatchWriter {
+
+  static final String HEADER = "record,run,round,bids,revenue,nash,agentsWhoCanImprove,paretoEfficiency,"
+          + "socialWelfare,item,winner,price,elapsedMicros,termination";
+
+  private final Writer out;
+
+  CsvBatchWriter(OutputStream output) throws IOException {
+    this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+    out.write(HEADER);
+    out.write('\n');
+  }
+
+  @Override
+  public void write(BatchService.Replication replication) throws IOException {
+    String run = Integer.toString(replication.run());
+    List<RoundStat> rounds = replication.rounds();
+    List<EquilibriumRoundStat> equilibrium = replication.equilibrium();
+
+    for (int i = 0; i < rounds.size(); i++) {
+      RoundStat stat = rounds.get(i);
+      EquilibriumRoundStat eq = equilibrium.get(i);
+      out.write("round,");
+      out.write(run);
+      out.write(',');
+      out.write(Integer.toString(stat.round()));
+      out.write(',');
+      out.write(Integer.toString(stat.totalBids()));
+      out.write(',');
+      out.write(Double.toString(stat.revenue()));
+      out.write(',');
+      out.write(Boolean.toString(eq.isNashEquilibrium()));
+      out.write(',');
+      out.write(Integer.toString(eq.agentsWhoCanImprove()));
+      out.write(',');
+      out.write(Double.toString(eq.paretoEfficiencyRatio()));
+      out.write(',');
+      out.write(Double.toString(eq.socialWelfare()));
+      out.write(",,,,,\n");
+    }
+
+    for (AuctionItem item : replication.allocation()) {
+      out.write("allocation,");
+      out.write(run);
+      out.write(",,,,,,,,");
+      writeField(item.id());
+      out.write(',');
+      writeField(item.currentWinner());
+      out.write(',');
+      out.write(Double.toString(item.price()));
+      out.write(",,\n");
+    }
+
+    out.write("run,");
+    out.write(run);
+    out.write(',');
+    out.write(Integer.toString(rounds.size()));
+    out.write(",,,,,,,,,,");
+    out.write(Long.toString(replication.elapsedNanos() / 1_000));
+    out.write(',');
+    out.write(replication.termination().name());
+    out.write('\n');
+  }
+
+  private void writeField(String value) throws IOException {
+    if (value == null) return;
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      out.write(value);
+      return;
+    }
+    out.write('"');
+    out.write(value.replace("\"", "\"\""));
+    out.write('"');
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
@@ -1,20 +1,44 @@
 package com.mtn.agent.client;
 
+import com.mtn.agent.domain.AuctionDelta;
 import com.mtn.agent.domain.AuctionState;
 import com.mtn.agent.domain.Bid;
+import com.mtn.agent.domain.BidBatchResult;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
+import java.util.List;
+
 @Path("auction")
 @RegisterRestClient(configKey = "auction-api")
 public interface AuctionClient {
 
   @GET
-  AuctionState getState();
+  AuctionState getState(@QueryParam("sessionId") Long sessionId);
+
+  @GET
+  AuctionDelta getChangesSince(@QueryParam("sessionId") Long sessionId, @QueryParam("sinceRound") int sinceRound);
 
   @POST
   @Path("bid")
-  void submitBid(Bid bid);
+  void submitBid(@QueryParam("sessionId") Long sessionId, Bid bid);
+
+  @POST
+  @Path("bids")
+  BidBatchResult submitBids(@QueryParam("sessionId") Long sessionId, List<Bid> bids);
+
+  default AuctionState getState() {
+    return getState(null);
+  }
+
+  default void submitBid(Bid bid) {
+    submitBid(null, bid);
+  }
+
+  default BidBatchResult submitBids(List<Bid> bids) {
+    return submitBids(null, bids);
+  }
 }
@@ -0,0 +1,10 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk agent import. Imports are all or nothing: when there are errors, nothing was
+ * imported.
+ */
+public record AgentImportResult(int imported, List<String> errors) {
+}
@@ -0,0 +1,93 @@
+package com.mtn.agent.domain;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable agent list whose versions share one backing array. A list of size n is a view of the
+ * array's first n entries, so appending to the newest version writes entry n and hands out a view
+ * of n + 1 entries without copying; the older version still sees its n. Only appending to a
+ * version that has already been extended, or outgrowing the array, copies.
+ *
+ * <p>This makes building a scenario agent by agent linear instead of quadratic. Removal copies.
+ */
+public final class AgentList extends AbstractList<AgentData> implements RandomAccess {
+
+  private static final AgentList EMPTY = new AgentList(new Storage(new AgentData[0], 0), 0);
+
+  private final Storage storage;
+  private final int size;
+
+  private AgentList(Storage storage, int size) {
+    this.storage = storage;
+    this.size = size;
+  }
+
+  public static AgentList of() {
+    return EMPTY;
+  }
+
+  /**
+   * The given agents as an {@code AgentList}; an {@code AgentList} is returned as it is.
+   */
+  public static AgentList copyOf(Collection<AgentData> agents) {
+    if (agents instanceof AgentList list) return list;
+    if (agents.isEmpty()) return EMPTY;
+    AgentData[] array = agents.toArray(new AgentData[0]);
+    return new AgentList(new Storage(array, array.length), array.length);
+  }
+
+  public AgentList with(AgentData agent) {
+    // Whoever claims entry `size` first extends in place; everyone else copies
+    if (size < storage.array.length && storage.claimed.compareAndSet(size, size + 1)) {
+      storage.array[size] = agent;
+      return new AgentList(storage, size + 1);
+    }
+    AgentData[] grown = Arrays.copyOf(storage.array, Math.max(8, size * 2));
+    grown[size] = agent;
+    return new AgentList(new Storage(grown, size + 1), size + 1);
+  }
+
+  /**
+   * This list without the agent of the given id, or this list itself if there is none.
+   */
+  public AgentList without(Long agentId) {
+    for (int i = 0; i < size; i++) {
+      if (storage.array[i].id().equals(agentId)) {
+        AgentData[] remaining = new AgentData[size - 1];
+        System.arraycopy(storage.array, 0, remaining, 0, i);
+        System.arraycopy(storage.array, i + 1, remaining, i, size - i - 1);
+        return new AgentList(new Storage(remaining, remaining.length), remaining.length);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public AgentData get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return storage.array[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  private static final class Storage {
+
+    private final AgentData[] array;
+    // Number of entries handed out to some version; only the version of exactly that size may extend
+    private final AtomicInteger claimed;
+
+    private Storage(AgentData[] array, int claimed) {
+      this.array = array;
+      this.claimed = new AtomicInteger(claimed);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+/**
+ * The items whose price or winner changed after {@code sinceRound}, with their current values.
+ */
+public record AuctionDelta(int sinceRound, int round, boolean isActive, List<AuctionItem> changedItems) {
+}
@@ -0,0 +1,6 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+public record BidBatchResult(int accepted, int rejected, List<BidStatus> statuses) {
+}
@@ -0,0 +1,16 @@
+package com.mtn.agent.domain;
+
+/**
+ * Selects bid records by round range, agent and item; null fields match everything.
+ */
+public record BidFilter(Integer fromRound, Integer toRound, String agentName, String itemId) {
+
+  public static final BidFilter ALL = new BidFilter(null, null, null, null);
+
+  public boolean matches(BidRecord bid) {
+    return (fromRound == null || bid.round() >= fromRound)
+            && (toRound == null || bid.round() <= toRound)
+            && (agentName == null || agentName.equals(bid.agentName()))
+            && (itemId == null || itemId.equals(bid.itemId()));
+  }
+}
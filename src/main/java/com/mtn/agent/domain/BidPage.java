@@ -0,0 +1,10 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+/**
+ * One page of a session's bid history. Pass {@code nextCursor} back to continue after the last
+ * record; {@code hasMore} is false once the history recorded so far has been exhausted.
+ */
+public record BidPage(List<BidRecord> bids, int nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,7 @@
+package com.mtn.agent.domain;
+
+/**
+ * Outcome of one bid in a batch submission; {@code reason} is null for accepted bids.
+ */
+public record BidStatus(int index, boolean accepted, String reason) {
+}
@@ -0,0 +1,19 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+/**
+ * Pushed to event stream subscribers after a resolved round. {@code changedItems} holds every item
+ * changed after {@code sinceRound}, with its current values, so an event can stand in for several
+ * rounds a slow subscriber missed. The stats are null for manually resolved auctions.
+ */
+public record RoundEvent(
+        Long sessionId,
+        int sinceRound,
+        int round,
+        boolean isActive,
+        List<AuctionItem> changedItems,
+        RoundStat stats,
+        EquilibriumRoundStat equilibrium
+) {
+}
@@ -0,0 +1,18 @@
+package com.mtn.agent.domain;
+
+import java.time.Instant;
+
+/**
+ * An archived simulation run. The session id is only meaningful while the server that ran it is
+ * up; the run id is permanent.
+ */
+public record RunSummary(
+        long runId,
+        Long sessionId,
+        Long scenarioId,
+        Instant archivedAt,
+        int rounds,
+        int bids,
+        int items
+) {
+}
@@ -1,6 +1,5 @@
 package com.mtn.agent.domain;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public record ScenarioData(
@@ -13,18 +12,14 @@ public record ScenarioData(
 ) {
 
   public ScenarioData {
-    agents = agents != null ? agents : new ArrayList<AgentData>();
+    agents = agents != null ? AgentList.copyOf(agents) : AgentList.of();
   }
 
   public ScenarioData withAgent(AgentData agent) {
-    List<AgentData> newAgents = new ArrayList<>(this.agents);
-    newAgents.add(agent);
-    return new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, newAgents);
+    return new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, ((AgentList) agents).with(agent));
   }
 
   public ScenarioData withoutAgent(Long agentId) {
-    List<AgentData> newAgents = new ArrayList<>(this.agents);
-    newAgents.removeIf(a -> a.id().equals(agentId));
-    return new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, newAgents);
+    return new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, ((AgentList) agents).without(agentId));
   }
 }
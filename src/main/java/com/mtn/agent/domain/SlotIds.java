@@ -0,0 +1,51 @@
+package com.mtn.agent.domain;
+
+import java.util.Arrays;
+
+/**
+ * Maps dense slot indices (0-based) to the public "SLOT_n" ids (1-based) and back.
+ * Ids are cached so the engine never concatenates strings on the hot path.
+ */
+public final class SlotIds {
+
+  private static final String PREFIX = "SLOT_";
+
+  private static volatile String[] cache = new String[0];
+
+  private SlotIds() {
+  }
+
+  public static String id(int index) {
+    String[] ids = cache;
+    if (index < ids.length) {
+      return ids[index];
+    }
+    return grow(index);
+  }
+
+  /**
+   * Returns the slot index for a "SLOT_n" id, or -1 if the id is not a slot id.
+   */
+  public static int index(String id) {
+    if (id == null || !id.startsWith(PREFIX) || id.length() == PREFIX.length()) return -1;
+    try {
+      int number = Integer.parseInt(id, PREFIX.length(), id.length(), 10);
+      return number >= 1 ? number - 1 : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  private static synchronized String grow(int index) {
+    String[] ids = cache;
+    if (index >= ids.length) {
+      String[] grown = Arrays.copyOf(ids, Math.max(index + 1, ids.length * 2));
+      for (int i = ids.length; i < grown.length; i++) {
+        grown[i] = PREFIX + (i + 1);
+      }
+      cache = grown;
+      ids = grown;
+    }
+    return ids[index];
+  }
+}
@@ -0,0 +1,13 @@
+package com.mtn.agent.domain;
+
+import java.util.List;
+
+/**
+ * The values a sweep tries for one parameter: either listed in {@code values}, or spread from
+ * {@code min} to {@code max}. A grid takes {@code steps} evenly spaced points, both ends
+ * included; a Latin hypercube samples the interval, or picks among the listed values. With
+ * {@code scale} {@code "log"} points are spaced evenly in logarithm, for parameters like
+ * epsilon that matter by order of magnitude.
+ */
+public record SweepRange(List<Double> values, Double min, Double max, Integer steps, String scale) {
+}
@@ -0,0 +1,24 @@
+package com.mtn.agent.domain;
+
+import java.util.Map;
+
+/**
+ * A parameter sweep over a scenario. Every cell of the design is the scenario with some of its
+ * parameters replaced, run {@code replications} times.
+ *
+ * <p>{@code parameters} maps {@code epsilon}, {@code numberOfSlots}, {@code maxRounds} and
+ * {@code strategyShare} to their ranges; the others keep the scenario's value. The strategy share
+ * is the fraction of agents switched to {@code mixStrategy}, spread evenly over the agent list.
+ * {@code design} is {@code "grid"} (every combination) or {@code "lhs"} ({@code samples} cells of a
+ * Latin hypercube).
+ */
+public record SweepRequest(
+        Long scenarioId,
+        String design,
+        Integer samples,
+        Integer replications,
+        Long seed,
+        String mixStrategy,
+        Map<String, SweepRange> parameters
+) {
+}
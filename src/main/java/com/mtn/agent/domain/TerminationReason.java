@@ -0,0 +1,29 @@
+package com.mtn.agent.domain;
+
+/**
+ * Why a simulation run stopped.
+ */
+public enum TerminationReason {
+  /**
+   * A round left every price and winner as it was.
+   */
+  STEADY_STATE,
+  /**
+   * No agent could gain from any item it does not hold, and every agent only bids for a gain: the
+   * next round could not have changed anything.
+   */
+  NASH_EQUILIBRIUM,
+  /**
+   * Prices and winners came back to those of an earlier round, with every agent deciding from
+   * the market alone, so the rounds in between would have repeated until the round limit.
+   */
+  CYCLE,
+  /**
+   * The scenario's round limit was reached.
+   */
+  MAX_ROUNDS,
+  /**
+   * The thread driving the run was interrupted.
+   */
+  INTERRUPTED
+}
@@ -0,0 +1,434 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidPage;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.RunSummary;
+import com.mtn.agent.domain.SlotIds;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A completed run as stored in the {@link RunArchive}: a read-only view of its region of the
+ * archive file. Accessors decode straight from the mapping, so an archived run costs no heap
+ * beyond its agent names.
+ *
+ * <p>Layout, little-endian, each section aligned to its element size:
+ * <pre>
+ *   header        magic, version, record length, ids, timestamp and section counts
+ *   round stats   int round, int totalBids, double revenue
+ *   equilibrium   int round, int agentsWhoCanImprove, double efficiencyRatio, double socialWelfare
+ *   final items   double price, int winner (agent code, -1 for none), int unused
+ *   bid amounts   double
+ *   bid agents    int, agent code
+ *   bid slots     int
+ *   round starts  int, position of each round's first bid, indexed by round
+ *   agent names   int offsets into the name bytes, one per agent plus the end, then the bytes
+ * </pre>
+ */
+public final class ArchivedRun {
+
+  // Spells "AURN" in the file; only written once the rest of the record is on disk
+  static final int MAGIC = 0x4e525541;
+  static final int VERSION = 1;
+
+  static final int H_MAGIC = 0;
+  static final int H_VERSION = 4;
+  static final int H_LENGTH = 8;
+  private static final int H_RUN_ID = 16;
+  private static final int H_SESSION_ID = 24;
+  private static final int H_SCENARIO_ID = 32;
+  private static final int H_ARCHIVED_AT = 40;
+  private static final int H_ROUNDS = 48;
+  private static final int H_EQUILIBRIA = 52;
+  private static final int H_ITEMS = 56;
+  private static final int H_BIDS = 60;
+  private static final int H_ROUND_STARTS = 64;
+  private static final int H_AGENTS = 68;
+  private static final int H_NAME_BYTES = 72;
+  static final int HEADER_SIZE = 80;
+
+  private static final int ROUND_STAT_SIZE = 16;
+  private static final int EQUILIBRIUM_SIZE = 24;
+  private static final int ITEM_SIZE = 16;
+  private static final long NONE = -1L;
+
+  private final ByteBuffer data;
+  private final int rounds;
+  private final int equilibria;
+  private final int items;
+  private final int bids;
+  private final int roundStarts;
+  private final int agents;
+
+  private final int statsAt;
+  private final int equilibriaAt;
+  private final int itemsAt;
+  private final int amountsAt;
+  private final int agentsAt;
+  private final int slotsAt;
+  private final int roundStartsAt;
+  private final int nameOffsetsAt;
+  private final int nameBytesAt;
+
+  // Decoded on first use; small next to the columns
+  private volatile String[] agentNames;
+  private volatile Map<String, Integer> agentCodes;
+
+  ArchivedRun(ByteBuffer region) {
+    this.data = region.order(ByteOrder.LITTLE_ENDIAN);
+    this.rounds = data.getInt(H_ROUNDS);
+    this.equilibria = data.getInt(H_EQUILIBRIA);
+    this.items = data.getInt(H_ITEMS);
+    this.bids = data.getInt(H_BIDS);
+    this.roundStarts = data.getInt(H_ROUND_STARTS);
+    this.agents = data.getInt(H_AGENTS);
+
+    this.statsAt = HEADER_SIZE;
+    this.equilibriaAt = statsAt + rounds * ROUND_STAT_SIZE;
+    this.itemsAt = equilibriaAt + equilibria * EQUILIBRIUM_SIZE;
+    this.amountsAt = itemsAt + items * ITEM_SIZE;
+    this.agentsAt = amountsAt + bids * Double.BYTES;
+    this.slotsAt = agentsAt + bids * Integer.BYTES;
+    this.roundStartsAt = slotsAt + bids * Integer.BYTES;
+    this.nameOffsetsAt = roundStartsAt + roundStarts * Integer.BYTES;
+    this.nameBytesAt = nameOffsetsAt + (agents + 1) * Integer.BYTES;
+  }
+
+  public long runId() {
+    return data.getLong(H_RUN_ID);
+  }
+
+  public RunSummary summary() {
+    return new RunSummary(
+            runId(),
+            nullable(data.getLong(H_SESSION_ID)),
+            nullable(data.getLong(H_SCENARIO_ID)),
+            Instant.ofEpochMilli(data.getLong(H_ARCHIVED_AT)),
+            rounds,
+            bids,
+            items);
+  }
+
+  public List<RoundStat> stats() {
+    return stats(0);
+  }
+
+  /**
+   * The stats from index {@code from} on, that is of the rounds after round {@code from}.
+   */
+  public List<RoundStat> stats(int from) {
+    List<RoundStat> stats = new ArrayList<>(Math.max(0, rounds - from));
+    for (int i = from, at = statsAt + from * ROUND_STAT_SIZE; i < rounds; i++, at += ROUND_STAT_SIZE) {
+      stats.add(new RoundStat(data.getInt(at), data.getInt(at + 4), data.getDouble(at + 8)));
+    }
+    return stats;
+  }
+
+  public List<EquilibriumRoundStat> equilibrium() {
+    return equilibrium(0);
+  }
+
+  public List<EquilibriumRoundStat> equilibrium(int from) {
+    List<EquilibriumRoundStat> history = new ArrayList<>(Math.max(0, equilibria - from));
+    for (int i = from, at = equilibriaAt + from * EQUILIBRIUM_SIZE; i < equilibria; i++, at += EQUILIBRIUM_SIZE) {
+      int agentsWhoCanImprove = data.getInt(at + 4);
+      history.add(new EquilibriumRoundStat(
+              data.getInt(at),
+              agentsWhoCanImprove == 0,
+              agentsWhoCanImprove,
+              data.getDouble(at + 8),
+              data.getDouble(at + 16)));
+    }
+    return history;
+  }
+
+  public List<AuctionItem> finalItems() {
+    String[] names = agentNames();
+    List<AuctionItem> allocation = new ArrayList<>(items);
+    for (int slot = 0, at = itemsAt; slot < items; slot++, at += ITEM_SIZE) {
+      int winner = data.getInt(at + 8);
+      allocation.add(new AuctionItem(SlotIds.id(slot), data.getDouble(at), winner < 0 ? null : names[winner]));
+    }
+    return allocation;
+  }
+
+  public int bidCount() {
+    return bids;
+  }
+
+  /**
+   * Bid counts by agent name, in agent code order, leaving out agents without bids.
+   */
+  public Map<String, Long> bidsPerAgent() {
+    long[] counts = new long[agents];
+    for (int position = 0, at = agentsAt; position < bids; position++, at += Integer.BYTES) {
+      counts[data.getInt(at)]++;
+    }
+    String[] names = agentNames();
+    Map<String, Long> perAgent = new LinkedHashMap<>();
+    for (int code = 0; code < agents; code++) {
+      if (counts[code] > 0) {
+        perAgent.put(names[code], counts[code]);
+      }
+    }
+    return perAgent;
+  }
+
+  /**
+   * Same contract as {@link BidLog#scan}, over the archived bids.
+   */
+  public int scanBids(int position, int limit, BidFilter filter, Consumer<BidRecord> sink) {
+    if (filter.fromRound() != null) {
+      position = Math.max(position, firstOfRound(filter.fromRound()));
+    }
+    position = Math.max(position, 0);
+
+    int agent = -1;
+    if (filter.agentName() != null) {
+      Integer code = agentCodes().get(filter.agentName());
+      if (code == null) return ~bids;
+      agent = code;
+    }
+    int slot = -1;
+    if (filter.itemId() != null) {
+      slot = SlotIds.index(filter.itemId());
+      if (slot < 0) return ~bids;
+    }
+    int toRound = filter.toRound() != null ? filter.toRound() : Integer.MAX_VALUE;
+
+    String[] names = agentNames();
+    int round = position < bids ? roundOf(position) : 0;
+    int taken = 0;
+    while (position < bids && taken < limit) {
+      while (round + 1 < roundStarts && roundStart(round + 1) <= position) {
+        round++;
+      }
+      if (round > toRound) {
+        return ~position;
+      }
+
+      int bidAgent = data.getInt(agentsAt + position * Integer.BYTES);
+      int bidSlot = data.getInt(slotsAt + position * Integer.BYTES);
+      if ((agent < 0 || bidAgent == agent) && (slot < 0 || bidSlot == slot)) {
+        sink.accept(new BidRecord(round, names[bidAgent], SlotIds.id(bidSlot),
+                data.getDouble(amountsAt + position * Double.BYTES)));
+        taken++;
+      }
+      position++;
+    }
+    return position < bids ? position : ~position;
+  }
+
+  public BidPage getBids(int cursor, int limit, BidFilter filter) {
+    List<BidRecord> page = new ArrayList<>(Math.min(limit, 1024));
+    int next = scanBids(cursor, limit, filter, page::add);
+    return next >= 0 ? new BidPage(page, next, true) : new BidPage(page, ~next, false);
+  }
+
+  private int firstOfRound(int round) {
+    if (round <= 0) return 0;
+    if (round >= roundStarts) return bids;
+    return roundStart(round);
+  }
+
+  private int roundStart(int round) {
+    return data.getInt(roundStartsAt + round * Integer.BYTES);
+  }
+
+  private int roundOf(int position) {
+    int low = 0;
+    int high = roundStarts - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (roundStart(mid) <= position) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private String[] agentNames() {
+    String[] names = agentNames;
+    if (names == null) {
+      names = new String[agents];
+      byte[] bytes = new byte[0];
+      for (int code = 0; code < agents; code++) {
+        int from = data.getInt(nameOffsetsAt + code * Integer.BYTES);
+        int to = data.getInt(nameOffsetsAt + (code + 1) * Integer.BYTES);
+        if (bytes.length < to - from) bytes = new byte[to - from];
+        data.get(nameBytesAt + from, bytes, 0, to - from);
+        names[code] = new String(bytes, 0, to - from, StandardCharsets.UTF_8);
+      }
+      agentNames = names;
+    }
+    return names;
+  }
+
+  private Map<String, Integer> agentCodes() {
+    Map<String, Integer> codes = agentCodes;
+    if (codes == null) {
+      String[] names = agentNames();
+      codes = new HashMap<>(names.length * 2);
+      for (int code = 0; code < names.length; code++) {
+        codes.put(names[code], code);
+      }
+      agentCodes = codes;
+    }
+    return codes;
+  }
+
+  private static Long nullable(long id) {
+    return id == NONE ? null : id;
+  }
+
+  /**
+   * Lays out a finished session for the archive: {@link #length()} tells how much room to make,
+   * {@link #write} fills it in.
+   */
+  static final class Writer {
+
+    private final List<RoundStat> stats;
+    private final List<EquilibriumRoundStat> equilibria;
+    private final List<AuctionItem> items;
+    private final BidLog bidLog;
+    private final int bids;
+    private final int[] roundStarts;
+    private final int[] winners;
+    private final byte[][] names;
+    private final int nameBytes;
+    private final Long sessionId;
+    private final Long scenarioId;
+    private final long length;
+
+    Writer(SimulationSession session) {
+      this.stats = session.getStatsHistory();
+      this.equilibria = session.getEquilibriumHistory();
+      this.items = session.getFinalItems();
+      this.bidLog = session.bidLog();
+      this.bids = bidLog.size();
+      this.roundStarts = bidLog.roundStarts();
+      this.sessionId = session.getId();
+      this.scenarioId = session.getScenarioId();
+
+      // The bid log's codes are kept as they are; winners that never bid are appended
+      Map<String, Integer> codes = new LinkedHashMap<>();
+      for (int code = 0; code < bidLog.agentCount(); code++) {
+        codes.put(bidLog.agentName(code), code);
+      }
+      this.winners = new int[items.size()];
+      for (int slot = 0; slot < winners.length; slot++) {
+        String winner = items.get(slot).currentWinner();
+        winners[slot] = winner == null ? -1 : codes.computeIfAbsent(winner, id -> codes.size());
+      }
+      this.names = new byte[codes.size()][];
+      int total = 0;
+      for (Map.Entry<String, Integer> entry : codes.entrySet()) {
+        names[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        total += names[entry.getValue()].length;
+      }
+      this.nameBytes = total;
+
+      long size = HEADER_SIZE
+              + (long) stats.size() * ROUND_STAT_SIZE
+              + (long) equilibria.size() * EQUILIBRIUM_SIZE
+              + (long) items.size() * ITEM_SIZE
+              + (long) bids * (Double.BYTES + 2 * Integer.BYTES)
+              + (long) roundStarts.length * Integer.BYTES
+              + (long) (names.length + 1) * Integer.BYTES
+              + nameBytes;
+      // Keep the next record 8-byte aligned
+      this.length = (size + 7) & ~7L;
+    }
+
+    long length() {
+      return length;
+    }
+
+    /**
+     * Fills {@code target}, positioned at the start of the record, except for the magic number:
+     * the record is not valid until {@link #commit} has put it in place. The buffer's position
+     * ends up past the record.
+     */
+    void write(ByteBuffer target, long runId, long archivedAt) {
+      ByteBuffer out = target.order(ByteOrder.LITTLE_ENDIAN);
+      int start = out.position();
+
+      out.putInt(0)
+              .putInt(VERSION)
+              .putLong(length)
+              .putLong(runId)
+              .putLong(sessionId == null ? NONE : sessionId)
+              .putLong(scenarioId == null ? NONE : scenarioId)
+              .putLong(archivedAt)
+              .putInt(stats.size())
+              .putInt(equilibria.size())
+              .putInt(items.size())
+              .putInt(bids)
+              .putInt(roundStarts.length)
+              .putInt(names.length)
+              .putInt(nameBytes)
+              .putInt(0);
+
+      for (RoundStat stat : stats) {
+        out.putInt(stat.round()).putInt(stat.totalBids()).putDouble(stat.revenue());
+      }
+      for (EquilibriumRoundStat stat : equilibria) {
+        out.putInt(stat.round())
+                .putInt(stat.agentsWhoCanImprove())
+                .putDouble(stat.paretoEfficiencyRatio())
+                .putDouble(stat.socialWelfare());
+      }
+      for (int slot = 0; slot < winners.length; slot++) {
+        out.putDouble(items.get(slot).price()).putInt(winners[slot]).putInt(0);
+      }
+
+      int amountsAt = out.position();
+      int agentsAt = amountsAt + bids * Double.BYTES;
+      int slotsAt = agentsAt + bids * Integer.BYTES;
+      bidLog.exportColumns(bids,
+              out.position(agentsAt).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+              out.position(slotsAt).slice().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer(),
+              out.position(amountsAt).slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+      out.position(slotsAt + bids * Integer.BYTES);
+
+      for (int roundStart : roundStarts) {
+        out.putInt(roundStart);
+      }
+      int offset = 0;
+      for (byte[] name : names) {
+        out.putInt(offset);
+        offset += name.length;
+      }
+      out.putInt(offset);
+      for (byte[] name : names) {
+        out.put(name);
+      }
+
+      out.position(start + (int) length);
+    }
+
+    /**
+     * Marks the record written at {@code start} as valid. Call only once its body has been forced
+     * to disk: pages may be written back in any order, so a magic number flushed together with the
+     * body could outlive part of it in a crash.
+     */
+    static void commit(ByteBuffer target, int start) {
+      target.duplicate().order(ByteOrder.LITTLE_ENDIAN).putInt(start + H_MAGIC, MAGIC);
+    }
+  }
+}
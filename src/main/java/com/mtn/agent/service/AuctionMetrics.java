@@ -0,0 +1,212 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.TerminationReason;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instrumentation of the auction, exposed on {@code /q/metrics}. Meters are looked up
+ * once per run and handed to the hot paths, which then only record into them.
+ */
+@Startup
+@ApplicationScoped
+public class AuctionMetrics {
+
+  static final String SCENARIO = "scenario";
+  static final String STRATEGY = "strategy";
+  static final String PHASE = "phase";
+  static final String OUTCOME = "outcome";
+  static final String REASON = "reason";
+
+  @Inject
+  MeterRegistry registry;
+
+  @Inject
+  SessionRegistry sessionRegistry;
+
+  @PostConstruct
+  void registerGauges() {
+    Gauge.builder("auction.simulations.active", sessionRegistry, SessionRegistry::activeCount)
+            .description("Sessions still running")
+            .register(registry);
+    Gauge.builder("auction.sessions.retained", sessionRegistry, sessions -> sessions.getAllSessions().size())
+            .description("Sessions held in memory, running or finished")
+            .register(registry);
+    Gauge.builder("auction.history.bids", sessionRegistry,
+                    sessions -> sessions.getAllSessions().stream().mapToLong(s -> s.bidLog().size()).sum())
+            .description("Bids recorded across retained sessions")
+            .baseUnit("bids")
+            .register(registry);
+    Gauge.builder("auction.history.rounds", sessionRegistry,
+                    sessions -> sessions.getAllSessions().stream().mapToLong(s -> s.statsLog().size()).sum())
+            .description("Round statistics recorded across retained sessions")
+            .baseUnit("rounds")
+            .register(registry);
+  }
+
+  /**
+   * Meters of an auctioneer serving the given scenario; null stands for sessions set up by hand.
+   */
+  public AuctioneerMeters auctioneer(Long scenarioId) {
+    Tags tags = Tags.of(SCENARIO, scenarioTag(scenarioId));
+    return new AuctioneerMeters(
+            Timer.builder("auction.round.resolve")
+                    .description("Time to resolve one round")
+                    .tags(tags)
+                    .register(registry),
+            Counter.builder("auction.bids.received")
+                    .description("Bids counted at resolution")
+                    .tags(tags)
+                    .register(registry),
+            Counter.builder("auction.bids.rejected")
+                    .description("Bids refused on submission")
+                    .tags(tags)
+                    .register(registry));
+  }
+
+  RunMeters run(Long scenarioId, List<AgentService> agents) {
+    String scenario = scenarioTag(scenarioId);
+
+    // Agents share their strategy's counter, addressed by a per-agent index into the counters
+    Map<String, Integer> strategies = new LinkedHashMap<>();
+    int[] strategyOf = new int[agents.size()];
+    for (int i = 0; i < strategyOf.length; i++) {
+      strategyOf[i] = strategies.computeIfAbsent(agents.get(i).getStrategyName(), name -> strategies.size());
+    }
+    Counter[] bids = new Counter[strategies.size()];
+    strategies.forEach((strategy, index) -> bids[index] = Counter.builder("auction.simulation.bids")
+            .description("Bids placed by simulated agents")
+            .tags(Tags.of(SCENARIO, scenario, STRATEGY, strategy))
+            .register(registry));
+
+    return new RunMeters(
+            phase(scenario, "decide"),
+            phase(scenario, "resolve"),
+            phase(scenario, "nash"),
+            phase(scenario, "termination"),
+            phase(scenario, "pareto"),
+            decisions(scenario, "decided"),
+            decisions(scenario, "reused"),
+            strategyOf,
+            bids);
+  }
+
+  /**
+   * Counts a finished run by why it stopped.
+   */
+  void terminated(Long scenarioId, TerminationReason reason) {
+    Counter.builder("auction.simulation.terminations")
+            .description("Finished simulation runs, by the reason they stopped")
+            .tags(Tags.of(SCENARIO, scenarioTag(scenarioId), REASON, reason.name()))
+            .register(registry)
+            .increment();
+  }
+
+  private Counter decisions(String scenario, String outcome) {
+    return Counter.builder("auction.simulation.decisions")
+            .description("Agent decisions per round, either run or repeated from an unchanged market")
+            .tags(Tags.of(SCENARIO, scenario, OUTCOME, outcome))
+            .register(registry);
+  }
+
+  private Timer phase(String scenario, String phase) {
+    return Timer.builder("auction.simulation.phase")
+            .description("Time spent per round in each phase of the simulation loop")
+            .tags(Tags.of(SCENARIO, scenario, PHASE, phase))
+            .register(registry);
+  }
+
+  private static String scenarioTag(Long scenarioId) {
+    return scenarioId == null ? "none" : scenarioId.toString();
+  }
+
+  /**
+   * Meters updated by {@link AuctioneerService}.
+   */
+  public record AuctioneerMeters(Timer resolve, Counter received, Counter rejected) {
+  }
+
+  /**
+   * Meters of one simulation run. Bids are tallied per strategy in plain arrays during a round and
+   * added to the counters once the round is over.
+   */
+  static final class RunMeters {
+
+    private final Timer decide;
+    private final Timer resolve;
+    private final Timer nash;
+    private final Timer termination;
+    private final Timer pareto;
+    private final Counter decided;
+    private final Counter reused;
+    private final int[] strategyOf;
+    private final Counter[] bids;
+    private final long[] roundBids;
+
+    private RunMeters(Timer decide, Timer resolve, Timer nash, Timer termination, Timer pareto, Counter decided,
+                      Counter reused, int[] strategyOf, Counter[] bids) {
+      this.decide = decide;
+      this.resolve = resolve;
+      this.nash = nash;
+      this.termination = termination;
+      this.pareto = pareto;
+      this.decided = decided;
+      this.reused = reused;
+      this.strategyOf = strategyOf;
+      this.bids = bids;
+      this.roundBids = new long[bids.length];
+    }
+
+    void decided(long nanos) {
+      decide.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void decisions(int made, int repeated) {
+      decided.increment(made);
+      if (repeated > 0) {
+        reused.increment(repeated);
+      }
+    }
+
+    void resolved(long nanos) {
+      resolve.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void nashChecked(long nanos) {
+      nash.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void terminationChecked(long nanos) {
+      termination.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void welfareComputed(long nanos) {
+      pareto.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void bid(int agent) {
+      roundBids[strategyOf[agent]]++;
+    }
+
+    void endRound() {
+      for (int i = 0; i < roundBids.length; i++) {
+        if (roundBids[i] > 0) {
+          bids[i].increment(roundBids[i]);
+          roundBids[i] = 0;
+        }
+      }
+    }
+  }
+}
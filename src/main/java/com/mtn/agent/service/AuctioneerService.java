@@ -1,25 +1,52 @@
 package com.mtn.agent.service;
 
+import com.mtn.agent.domain.AuctionDelta;
 import com.mtn.agent.domain.AuctionItem;
 import com.mtn.agent.domain.AuctionState;
 import com.mtn.agent.domain.Bid;
-import jakarta.enterprise.context.ApplicationScoped;
+import com.mtn.agent.domain.BidStatus;
+import com.mtn.agent.domain.SlotIds;
+import jakarta.enterprise.context.Dependent;
 import org.jboss.logging.Logger;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
 
-@ApplicationScoped
+@Dependent
 public class AuctioneerService {
 
   private static final Logger LOG = Logger.getLogger(AuctioneerService.class);
 
-  private final Map<String, AuctionItem> items = new ConcurrentHashMap<>();
-  private final List<Bid> currentRoundBids = Collections.synchronizedList(new ArrayList<>());
+  // Auction state, addressed by slot index; winners hold agent indices
+  private double[] prices = new double[0];
+  private int[] winners = new int[0];
+
+  private final List<String> agentIds = new ArrayList<>();
+  private final Map<String, Integer> agentIndex = new ConcurrentHashMap<>();
+
+  // Bids of the current round: per-slot count plus the sole bid, which is all resolution needs.
+  // Bidders never take the auctioneer's lock; see BidIntake.
+  private volatile BidIntake intake = new BidIntake(0);
+
+  // Change log: the slots changed in each round, appended in round order. Round r's entries
+  // start at roundLogStart[r]; lastChangedRound tells which entry of a slot is its latest.
+  private int[] changeLog = new int[0];
+  private int changeLogSize = 0;
+  private int[] roundLogStart = new int[0];
+  private int[] lastChangedRound = new int[0];
+
+  // Public snapshot, materialized on demand: only items changed since the last build get a new record
+  private AuctionItem[] items = new AuctionItem[0];
+  private int itemsBuiltRound = 0;
+  private AuctionState cachedState;
 
   private int round = 0;
-  private boolean isActive = true;
+  private volatile boolean isActive = true;
   private double epsilon = 1.0;
+  private boolean roundLogging = true;
+  private AuctionMetrics.AuctioneerMeters meters;
 
   public void init() {
     init(5, 1.0);
@@ -29,84 +56,299 @@ public class AuctioneerService {
     init(numberOfSlots, 1.0);
   }
 
-  public void init(int numberOfSlots, double epsilon) {
-    items.clear();
-    currentRoundBids.clear();
+  public synchronized void init(int numberOfSlots, double epsilon) {
+    this.prices = new double[numberOfSlots];
+    this.winners = new int[numberOfSlots];
+    Arrays.fill(winners, MarketView.NO_WINNER);
+
+    this.intake = new BidIntake(numberOfSlots);
+
+    this.changeLog = new int[Math.max(16, numberOfSlots)];
+    this.changeLogSize = 0;
+    this.roundLogStart = new int[16];
+    this.lastChangedRound = new int[numberOfSlots];
+
+    this.items = new AuctionItem[numberOfSlots];
+    for (int slot = 0; slot < numberOfSlots; slot++) {
+      items[slot] = new AuctionItem(SlotIds.id(slot), 0.0, null);
+    }
+    this.itemsBuiltRound = 0;
+    this.cachedState = null;
+
+    agentIds.clear();
+    agentIndex.clear();
 
     this.round = 0;
     this.isActive = true;
     this.epsilon = epsilon;
 
-    for (int i = 1; i <= numberOfSlots; i++) {
-      String slotId = "SLOT_" + i;
-      items.put(slotId, new AuctionItem(slotId, 0.0, null));
+    if (roundLogging) {
+      LOG.infov("--- AUCTION INITIALIZED with {0} Slots, Epsilon: {1} ---", numberOfSlots, epsilon);
+    }
+  }
+
+  /**
+   * Enables or disables the per-round and per-item resolution log lines. Batch runs switch
+   * this off because the logging costs more than the resolution itself.
+   */
+  public void setRoundLogging(boolean roundLogging) {
+    this.roundLogging = roundLogging;
+  }
+
+  /**
+   * Attaches the meters this auctioneer records into; null detaches them.
+   */
+  public void setMeters(AuctionMetrics.AuctioneerMeters meters) {
+    this.meters = meters;
+  }
+
+  /**
+   * Returns the dense index for an agent id, assigning the next free one on first use.
+   */
+  public int registerAgent(String agentId) {
+    Integer existing = agentIndex.get(agentId);
+    return existing != null ? existing : registerNewAgent(agentId);
+  }
+
+  private synchronized int registerNewAgent(String agentId) {
+    Integer existing = agentIndex.get(agentId);
+    if (existing != null) return existing;
+
+    int index = agentIds.size();
+    agentIds.add(agentId);
+    agentIndex.put(agentId, index);
+    return index;
+  }
+
+  /**
+   * Registers the in-process agents of a simulation, whose indices are their positions in the
+   * session's agent list.
+   */
+  public synchronized void registerAgents(List<AgentService> agents) {
+    for (AgentService agent : agents) {
+      while (agentIds.size() <= agent.getIndex()) {
+        agentIds.add(null);
+      }
+      agentIds.set(agent.getIndex(), agent.getAgentId());
+      agentIndex.put(agent.getAgentId(), agent.getIndex());
+    }
+  }
+
+  /**
+   * The full public state. Built at most once per round and shared between callers; rebuilding
+   * only allocates records for the items that changed since the previous build.
+   */
+  public synchronized AuctionState getState() {
+    if (cachedState == null || cachedState.round() != round || cachedState.isActive() != isActive) {
+      for (int r = itemsBuiltRound + 1; r <= round; r++) {
+        for (int i = roundLogStart[r], end = logEnd(r); i < end; i++) {
+          int slot = changeLog[i];
+          if (lastChangedRound[slot] == r) {
+            items[slot] = new AuctionItem(SlotIds.id(slot), prices[slot], winnerId(slot));
+          }
+        }
+      }
+      itemsBuiltRound = round;
+      cachedState = new AuctionState(Collections.unmodifiableList(Arrays.asList(items.clone())), isActive, round);
+    }
+    return cachedState;
+  }
+
+  /**
+   * The items changed after {@code sinceRound}, each reported once with its current values.
+   * Costs the number of changes since that round rather than the number of slots.
+   */
+  public synchronized AuctionDelta getChangesSince(int sinceRound) {
+    int from = Math.max(0, sinceRound);
+    List<AuctionItem> changed = new ArrayList<>();
+
+    for (int r = from + 1; r <= round; r++) {
+      for (int i = roundLogStart[r], end = logEnd(r); i < end; i++) {
+        int slot = changeLog[i];
+        if (lastChangedRound[slot] == r) {
+          changed.add(new AuctionItem(SlotIds.id(slot), prices[slot], winnerId(slot)));
+        }
+      }
+    }
+    return new AuctionDelta(from, round, isActive, changed);
+  }
+
+  /**
+   * Calls {@code action} with each slot changed in {@code round}, once per slot.
+   */
+  public synchronized void forEachChange(int round, IntConsumer action) {
+    if (round < 1 || round > this.round) return;
+    for (int i = roundLogStart[round], end = logEnd(round); i < end; i++) {
+      action.accept(changeLog[i]);
     }
+  }
 
-    LOG.infov("--- AUCTION INITIALIZED with {0} Slots, Epsilon: {1} ---", numberOfSlots, epsilon);
+  /**
+   * Zero-copy view of the current round for in-process strategies; see {@link MarketView}.
+   */
+  public synchronized MarketView view() {
+    return new MarketView(prices, winners, isActive, round);
+  }
+
+  public synchronized double totalRevenue() {
+    double revenue = 0.0;
+    for (double price : prices) {
+      revenue += price;
+    }
+    return revenue;
   }
 
+  /**
+   * Accepts a bid for the round currently open. Returns false if the bid was rejected.
+   */
+  public boolean receiveBid(Bid bid) {
+    BidStatus status = receiveBid(0, bid);
+    if (!status.accepted()) {
+      LOG.warnv("Rejected bid from agent {0}: {1}", bid == null ? null : bid.agentId(), status.reason());
+    }
+    return status.accepted();
+  }
+
+  /**
+   * Validates and records one bid of a batch in a single pass, reporting the outcome under the
+   * bid's position in the batch instead of logging it.
+   */
+  public BidStatus receiveBid(int position, Bid bid) {
+    if (bid == null || bid.agentId() == null || bid.agentId().isBlank()) {
+      return rejected(position, "missing agentId");
+    }
+    int slot = SlotIds.index(bid.itemId());
+    if (slot < 0 || slot >= prices.length) {
+      return rejected(position, "unknown item " + bid.itemId());
+    }
+    if (!Double.isFinite(bid.amount()) || bid.amount() < 0) {
+      return rejected(position, "invalid amount");
+    }
+    if (!isActive) {
+      return rejected(position, "auction is over");
+    }
+    intake.record(registerAgent(bid.agentId()), slot, bid.amount());
+    return new BidStatus(position, true, null);
+  }
 
-  public AuctionState getState() {
-    return new AuctionState(new ArrayList<>(items.values()), isActive, round);
+  private BidStatus rejected(int position, String reason) {
+    if (meters != null) {
+      meters.rejected().increment();
+    }
+    return new BidStatus(position, false, reason);
   }
 
-  public void receiveBid(Bid bid) {
+  /**
+   * Lock-free intake used by in-process agents and the REST endpoint alike. A bid that races with
+   * {@link #resolveRound()} is counted either in the round being resolved or in the next one,
+   * never in both and never lost.
+   */
+  public boolean receiveBid(int agent, int slot, double amount) {
     if (!isActive) {
-      LOG.warnv("Auction is over, rejected bid from agent: {0}", bid.agentId());
-      return;
+      LOG.warnv("Auction is over, rejected bid from agent index: {0}", agent);
+      if (meters != null) {
+        meters.rejected().increment();
+      }
+      return false;
     }
-    currentRoundBids.add(bid);
+
+    intake.record(agent, slot, amount);
+    return true;
   }
 
   public synchronized void resolveRound() {
     if (!isActive) return;
+    long start = System.nanoTime();
 
     round++;
-    LOG.infov("--- RESOLVING ROUND {0} ---", round);
-    LOG.infov("Bids received: {0}", currentRoundBids.size());
+    if (round >= roundLogStart.length) {
+      roundLogStart = Arrays.copyOf(roundLogStart, roundLogStart.length * 2);
+    }
+    roundLogStart[round] = changeLogSize;
 
-    Map<String, List<Bid>> bidsPerItem = new HashMap<>();
-    for (Bid b : currentRoundBids) {
-      bidsPerItem.computeIfAbsent(b.itemId(), k -> new ArrayList<>()).add(b);
+    BidIntake.Epoch bids = intake.swap();
+
+    if (roundLogging) {
+      LOG.infov("--- RESOLVING ROUND {0} ---", round);
+      LOG.infov("Bids received: {0}", bids.totalBids());
     }
 
     boolean somethingChanged = false;
 
-    for (String itemId : items.keySet()) {
-      List<Bid> bids = bidsPerItem.getOrDefault(itemId, Collections.emptyList());
-      AuctionItem item = items.get(itemId);
-
-      if (bids.isEmpty()) {
-        continue;
+    // Slots nobody bid on keep their current winner, so only the touched ones need resolving
+    for (int t = 0, touched = bids.touchedCount(); t < touched; t++) {
+      int slot = bids.touchedSlot(t);
 
-      } else if (bids.size() == 1) {
+      if (bids.bidCount(slot) == 1) {
 
-        Bid winnerBid = bids.getFirst();
-        double newPrice = Math.max(item.price(), winnerBid.amount());
+        int winner = bids.soleBidder(slot);
+        double newPrice = Math.max(prices[slot], bids.soleAmount(slot));
 
 
-        if (!winnerBid.agentId().equals(item.currentWinner()) || newPrice > item.price()) {
-          items.put(itemId, item.withNewPrice(newPrice, winnerBid.agentId()));
+        if (winner != winners[slot] || newPrice > prices[slot]) {
+          prices[slot] = newPrice;
+          winners[slot] = winner;
+          recordChange(slot);
           somethingChanged = true;
-          LOG.infov("-> Item {0} won by {1} at price {2}", itemId, winnerBid.agentId(), newPrice);
+          if (roundLogging) {
+            LOG.infov("-> Item {0} won by {1} at price {2}", SlotIds.id(slot), agentIds.get(winner), newPrice);
+          }
         }
 
       } else {
 
-        double newPrice = item.price() + epsilon;
+        double newPrice = prices[slot] + epsilon;
 
-        items.put(itemId, item.withNewPrice(newPrice, null));
+        prices[slot] = newPrice;
+        winners[slot] = MarketView.NO_WINNER;
+        recordChange(slot);
 
         somethingChanged = true;
-        LOG.infov("-> Item {0} OVER-DEMAND! Price increased to {1}", itemId, newPrice);
+        if (roundLogging) {
+          LOG.infov("-> Item {0} OVER-DEMAND! Price increased to {1}", SlotIds.id(slot), newPrice);
+        }
       }
     }
 
-    currentRoundBids.clear();
-
     if (!somethingChanged) {
       isActive = false;
-      LOG.info("AUCTION TERMINATED");
+      if (roundLogging) {
+        LOG.info("AUCTION TERMINATED");
+      }
     }
+
+    if (meters != null) {
+      meters.received().increment(bids.totalBids());
+      meters.resolve().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Closes the auction without resolving another round, for a driver that knows the outcome is
+   * settled. Bids received after this are refused like those after a natural end.
+   */
+  public synchronized void terminate() {
+    if (isActive && roundLogging) {
+      LOG.info("AUCTION TERMINATED EARLY");
+    }
+    isActive = false;
+  }
+
+  private void recordChange(int slot) {
+    if (changeLogSize == changeLog.length) {
+      changeLog = Arrays.copyOf(changeLog, changeLog.length * 2);
+    }
+    changeLog[changeLogSize++] = slot;
+    lastChangedRound[slot] = round;
+  }
+
+  // End of round r's change log entries; the current round runs to the end of the log
+  private int logEnd(int r) {
+    return r < round ? roundLogStart[r + 1] : changeLogSize;
+  }
+
+  private String winnerId(int slot) {
+    int winner = winners[slot];
+    return winner == MarketView.NO_WINNER ? null : agentIds.get(winner);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.domain.TerminationReason;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs replications of a scenario for the command-line batch runner and hands each one over in
+ * full, in run order. Replication {@code i} of a seed draws the same valuations as replication
+ * {@code i} of a Monte Carlo run with that seed, so a batch can reproduce what the API summarized.
+ *
+ * <p>Replications run side by side, but only a few ahead of the one being handed over, so memory
+ * stays bounded however many runs are asked for.
+ */
+@ApplicationScoped
+public class BatchService {
+
+  @Inject
+  SimulationRunner simulationRunner;
+
+  /**
+   * @param parallelism replications run at once; with 1, large populations may decide in parallel instead
+   * @param sink        called on the calling thread with each replication, in run order
+   * @throws IllegalArgumentException if an agent names a strategy that is not available
+   */
+  public void run(ScenarioData scenario, int runs, long seed, int parallelism, Consumer<Replication> sink) {
+    simulationRunner.checkStrategies(scenario);
+    int threads = Math.max(1, parallelism);
+    int maxInFlight = threads * 2;
+
+    SplittableRandom root = new SplittableRandom(seed);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    ArrayDeque<Future<Replication>> inFlight = new ArrayDeque<>(maxInFlight);
+    try {
+      int submitted = 0;
+      while (submitted < runs || !inFlight.isEmpty()) {
+        while (submitted < runs && inFlight.size() < maxInFlight) {
+          int run = submitted++;
+          // Split on this thread, in order, so every run gets the stream Monte Carlo would give it
+          SplittableRandom stream = root.split();
+          inFlight.add(executor.submit(() -> replicate(scenario, run, stream, threads == 1)));
+        }
+        sink.accept(inFlight.poll().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Batch run interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Batch replication failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Replication replicate(ScenarioData scenario, int run, SplittableRandom stream, boolean parallelDecide) {
+    long start = System.nanoTime();
+    SimulationSession replica = simulationRunner.prepareReplication(scenario, stream);
+    if (parallelDecide) {
+      simulationRunner.run(replica, SimulationMode.BATCH);
+    } else {
+      simulationRunner.run(replica, SimulationMode.BATCH, false);
+    }
+    return new Replication(run, System.nanoTime() - start, replica.getTerminationReason().orElseThrow(),
+            replica.statsLog(), replica.equilibriumLog(), replica.getFinalItems());
+  }
+
+  /**
+   * One finished replication. {@code rounds} and {@code equilibrium} hold one entry per round, in
+   * the same order; {@code elapsedNanos} covers loading the agents as well as running the rounds.
+   */
+  public record Replication(
+          int run,
+          long elapsedNanos,
+          TerminationReason termination,
+          List<RoundStat> rounds,
+          List<EquilibriumRoundStat> equilibrium,
+          List<AuctionItem> allocation
+  ) {
+  }
+}
@@ -0,0 +1,119 @@
+package com.mtn.agent.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Lock-free collection of one round's bids, organised in epochs. Bidders record into the current
+ * epoch; at resolution the auctioneer swaps in the other epoch, waits for bidders still writing
+ * to the old one and then reads it. A bid racing with the swap is retried on the new epoch, so
+ * every recorded bid is counted in exactly one round.
+ *
+ * <p>Only one thread may call {@link #swap()} at a time; the auctioneer does so under its lock.
+ */
+final class BidIntake {
+
+  private volatile Epoch current;
+  private Epoch spare;
+
+  BidIntake(int slotCount) {
+    this.current = new Epoch(slotCount);
+    this.spare = new Epoch(slotCount);
+    this.spare.sealed = true;
+  }
+
+  void record(int agent, int slot, double amount) {
+    while (true) {
+      Epoch epoch = current;
+      epoch.inFlight.incrementAndGet();
+      try {
+        // Checked after announcing ourselves: either the resolver sees us and waits, or we see
+        // the seal and move on to the epoch that replaced this one
+        if (epoch.sealed) continue;
+
+        if (epoch.bidCount.getAndIncrement(slot) == 0) {
+          epoch.soleBidder[slot] = agent;
+          epoch.soleAmount[slot] = amount;
+          epoch.touchedSlots[epoch.touchedCount.getAndIncrement()] = slot;
+        }
+        return;
+      } finally {
+        epoch.inFlight.decrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * Closes the current epoch and returns it once no bidder is writing to it any more. The
+   * returned epoch stays readable until the next swap.
+   */
+  Epoch swap() {
+    Epoch closing = current;
+
+    Epoch next = spare;
+    next.reset();
+    next.sealed = false;
+    current = next;
+
+    closing.sealed = true;
+    while (closing.inFlight.get() != 0) {
+      Thread.onSpinWait();
+    }
+
+    spare = closing;
+    return closing;
+  }
+
+  static final class Epoch {
+
+    private final AtomicIntegerArray bidCount;
+    private final int[] soleBidder;
+    private final double[] soleAmount;
+    private final int[] touchedSlots;
+    private final AtomicInteger touchedCount = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean sealed;
+
+    private Epoch(int slotCount) {
+      this.bidCount = new AtomicIntegerArray(slotCount);
+      this.soleBidder = new int[slotCount];
+      this.soleAmount = new double[slotCount];
+      this.touchedSlots = new int[slotCount];
+    }
+
+    int touchedCount() {
+      return touchedCount.get();
+    }
+
+    int touchedSlot(int i) {
+      return touchedSlots[i];
+    }
+
+    int bidCount(int slot) {
+      return bidCount.get(slot);
+    }
+
+    int soleBidder(int slot) {
+      return soleBidder[slot];
+    }
+
+    double soleAmount(int slot) {
+      return soleAmount[slot];
+    }
+
+    int totalBids() {
+      int total = 0;
+      for (int i = 0, n = touchedCount(); i < n; i++) {
+        total += bidCount(touchedSlots[i]);
+      }
+      return total;
+    }
+
+    private void reset() {
+      for (int i = 0, n = touchedCount(); i < n; i++) {
+        bidCount.set(touchedSlots[i], 0);
+      }
+      touchedCount.set(0);
+    }
+  }
+}
@@ -0,0 +1,312 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.SlotIds;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, column-oriented bid history: per bid an agent code, a slot index and the amount,
+ * about 16 bytes. Agent ids are dictionary-encoded, items are stored as slot indices and rounds
+ * as the position of each round's first bid, since bids are appended round by round.
+ *
+ * <p>One thread appends while any number of threads read. Readers see every bid below
+ * {@link #size()}; arrays are only ever replaced by larger copies of themselves, so whichever
+ * version a reader picks up holds everything it can reach.
+ */
+public final class BidLog {
+
+  private static final int CHUNK_SHIFT = 13;
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  // Marks rounds not reached yet, so that no position ever falls into them
+  private static final int NOT_STARTED = Integer.MAX_VALUE;
+
+  private int[][] agentChunks = new int[0][];
+  private int[][] slotChunks = new int[0][];
+  private double[][] amountChunks = new double[0][];
+
+  // roundStart[r] is the position of round r's first bid
+  private int[] roundStart = newRoundIndex(64);
+  private int lastRound = 0;
+
+  private String[] agentNames = new String[16];
+  private int agentCount = 0;
+  private final Map<String, Integer> agentCodes = new ConcurrentHashMap<>();
+
+  private volatile int size = 0;
+
+  /**
+   * Returns the dictionary code of an agent id, assigning the next one on first use. Writer only.
+   */
+  public int encodeAgent(String agentId) {
+    Integer code = agentCodes.get(agentId);
+    if (code != null) return code;
+
+    if (agentCount == agentNames.length) {
+      agentNames = Arrays.copyOf(agentNames, agentCount * 2);
+    }
+    agentNames[agentCount] = agentId;
+    agentCodes.put(agentId, agentCount);
+    return agentCount++;
+  }
+
+  /**
+   * Appends one bid. Rounds must not decrease. Writer only.
+   */
+  public void append(int round, int agent, int slot, double amount) {
+    int position = size;
+    if (round != lastRound) {
+      startRound(round, position);
+    }
+
+    int chunk = position >>> CHUNK_SHIFT;
+    if (chunk == agentChunks.length) {
+      addChunk();
+    }
+    int offset = position & CHUNK_MASK;
+    agentChunks[chunk][offset] = agent;
+    slotChunks[chunk][offset] = slot;
+    amountChunks[chunk][offset] = amount;
+
+    size = position + 1;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public BidRecord get(int position) {
+    if (position < 0 || position >= size) {
+      throw new IndexOutOfBoundsException(position);
+    }
+    return record(position, roundOf(position));
+  }
+
+  /**
+   * Position of the first bid placed in {@code round} or later.
+   */
+  public int firstOfRound(int round) {
+    int visible = size;
+    int[] starts = roundStart;
+    if (round <= 0) return 0;
+    if (round >= starts.length) return visible;
+    return Math.min(starts[round], visible);
+  }
+
+  /**
+   * Hands the bids matching {@code filter} from {@code position} on to {@code sink}, stopping after
+   * {@code limit} of them. Returns the position to resume from, or its complement
+   * ({@code ~position}, always negative) once the bids appended so far are exhausted.
+   */
+  public int scan(int position, int limit, BidFilter filter, Consumer<BidRecord> sink) {
+    int visible = size;
+    int[] starts = roundStart;
+
+    if (filter.fromRound() != null) {
+      position = Math.max(position, firstOfRound(filter.fromRound()));
+    }
+    position = Math.max(position, 0);
+
+    // Compare codes, not strings; a filter naming an unknown agent or item matches nothing
+    int agent = -1;
+    if (filter.agentName() != null) {
+      Integer code = agentCodes.get(filter.agentName());
+      if (code == null) return ~visible;
+      agent = code;
+    }
+    int slot = -1;
+    if (filter.itemId() != null) {
+      slot = SlotIds.index(filter.itemId());
+      if (slot < 0) return ~visible;
+    }
+    int toRound = filter.toRound() != null ? filter.toRound() : Integer.MAX_VALUE;
+
+    int round = position < visible ? roundOf(position) : 0;
+    int taken = 0;
+    while (position < visible && taken < limit) {
+      while (round + 1 < starts.length && starts[round + 1] <= position) {
+        round++;
+      }
+      if (round > toRound) {
+        return ~position;
+      }
+
+      int chunk = position >>> CHUNK_SHIFT;
+      int offset = position & CHUNK_MASK;
+      if ((agent < 0 || agentChunks[chunk][offset] == agent) && (slot < 0 || slotChunks[chunk][offset] == slot)) {
+        sink.accept(record(position, round));
+        taken++;
+      }
+      position++;
+    }
+    return position < visible ? position : ~position;
+  }
+
+  // Aggregations; each is one pass over the columns
+
+  public Totals totalsByAgent() {
+    int visible = size;
+    Totals totals = new Totals(new long[agentCount], new double[agentCount]);
+    forEachChunk(visible, (chunk, length) -> {
+      int[] agents = agentChunks[chunk];
+      double[] amounts = amountChunks[chunk];
+      for (int i = 0; i < length; i++) {
+        totals.add(agents[i], amounts[i]);
+      }
+    });
+    return totals;
+  }
+
+  public Totals totalsByItem(int slotCount) {
+    int visible = size;
+    Totals totals = new Totals(new long[slotCount], new double[slotCount]);
+    forEachChunk(visible, (chunk, length) -> {
+      int[] slots = slotChunks[chunk];
+      double[] amounts = amountChunks[chunk];
+      for (int i = 0; i < length; i++) {
+        totals.add(slots[i], amounts[i]);
+      }
+    });
+    return totals;
+  }
+
+  /**
+   * Totals indexed by round; index 0 stays empty since rounds start at 1.
+   */
+  public Totals totalsByRound() {
+    int visible = size;
+    int[] starts = roundStart;
+    int rounds = 0;
+    while (rounds + 1 < starts.length && starts[rounds + 1] < visible) {
+      rounds++;
+    }
+    Totals totals = new Totals(new long[rounds + 1], new double[rounds + 1]);
+    for (int round = 1; round <= rounds; round++) {
+      int end = round + 1 < starts.length ? Math.min(starts[round + 1], visible) : visible;
+      for (int position = starts[round]; position < end; position++) {
+        totals.add(round, amountChunks[position >>> CHUNK_SHIFT][position & CHUNK_MASK]);
+      }
+    }
+    return totals;
+  }
+
+  public String agentName(int code) {
+    return agentNames[code];
+  }
+
+  int agentCount() {
+    return agentCount;
+  }
+
+  /**
+   * Copies the columns of the first {@code count} bids into the given buffers. Writer only.
+   */
+  void exportColumns(int count, IntBuffer agents, IntBuffer slots, DoubleBuffer amounts) {
+    forEachChunk(count, (chunk, length) -> {
+      agents.put(agentChunks[chunk], 0, length);
+      slots.put(slotChunks[chunk], 0, length);
+      amounts.put(amountChunks[chunk], 0, length);
+    });
+  }
+
+  /**
+   * The position of each round's first bid, indexed by round up to the last one appended.
+   */
+  int[] roundStarts() {
+    return Arrays.copyOf(roundStart, lastRound + 1);
+  }
+
+  /**
+   * Bid count and summed amount per key, where the key is an agent code, a slot index or a round.
+   */
+  public record Totals(long[] counts, double[] amounts) {
+
+    private void add(int key, double amount) {
+      counts[key]++;
+      amounts[key] += amount;
+    }
+  }
+
+  private BidRecord record(int position, int round) {
+    int chunk = position >>> CHUNK_SHIFT;
+    int offset = position & CHUNK_MASK;
+    return new BidRecord(
+            round,
+            agentNames[agentChunks[chunk][offset]],
+            SlotIds.id(slotChunks[chunk][offset]),
+            amountChunks[chunk][offset]);
+  }
+
+  // Last round whose first bid is at or before the position
+  private int roundOf(int position) {
+    int[] starts = roundStart;
+    int low = 0;
+    int high = starts.length - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (starts[mid] <= position) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private void startRound(int round, int position) {
+    if (round < lastRound) {
+      throw new IllegalArgumentException("Round " + round + " appended after round " + lastRound);
+    }
+    int[] starts = roundStart;
+    if (round >= starts.length) {
+      int length = starts.length;
+      while (length <= round) length *= 2;
+      int[] grown = newRoundIndex(length);
+      System.arraycopy(starts, 0, grown, 0, starts.length);
+      starts = grown;
+    }
+    // Rounds without bids start where the next one does
+    for (int r = lastRound + 1; r <= round; r++) {
+      starts[r] = position;
+    }
+    roundStart = starts;
+    lastRound = round;
+  }
+
+  private void addChunk() {
+    int chunks = agentChunks.length;
+    int[][] agents = Arrays.copyOf(agentChunks, chunks + 1);
+    int[][] slots = Arrays.copyOf(slotChunks, chunks + 1);
+    double[][] amounts = Arrays.copyOf(amountChunks, chunks + 1);
+    agents[chunks] = new int[CHUNK_SIZE];
+    slots[chunks] = new int[CHUNK_SIZE];
+    amounts[chunks] = new double[CHUNK_SIZE];
+    agentChunks = agents;
+    slotChunks = slots;
+    amountChunks = amounts;
+  }
+
+  private void forEachChunk(int visible, ChunkVisitor visitor) {
+    for (int chunk = 0; chunk << CHUNK_SHIFT < visible; chunk++) {
+      visitor.visit(chunk, Math.min(CHUNK_SIZE, visible - (chunk << CHUNK_SHIFT)));
+    }
+  }
+
+  private interface ChunkVisitor {
+    void visit(int chunk, int length);
+  }
+
+  private static int[] newRoundIndex(int length) {
+    int[] starts = new int[length];
+    Arrays.fill(starts, 1, length, NOT_STARTED);
+    return starts;
+  }
+}
@@ -0,0 +1,22 @@
+package com.mtn.agent.service;
+
+/**
+ * Everything a strategy needs to know about the agent it is deciding for.
+ *
+ * @param index       the agent's dense index, as used for winners in {@link MarketView}
+ * @param agentId     the public agent id, as bids and results name the agent
+ * @param valuations  the agent's private values per slot
+ * @param budgetLimit wallet limit, negative for unlimited
+ * @param state       the strategy's own state for this agent, from {@link BiddingStrategy#newState}
+ */
+public record BidderProfile(int index, String agentId, SlotValuations valuations, double budgetLimit,
+                            Object state) {
+
+  public BidderProfile(int index, String agentId, SlotValuations valuations, double budgetLimit) {
+    this(index, agentId, valuations, budgetLimit, null);
+  }
+
+  public BidderProfile withState(Object state) {
+    return new BidderProfile(index, agentId, valuations, budgetLimit, state);
+  }
+}
@@ -1,12 +1,67 @@
 package com.mtn.agent.service;
 
-import com.mtn.agent.domain.AuctionState;
-import com.mtn.agent.domain.Bid;
-
-import java.util.Map;
-
+/**
+ * A bidding strategy, shared by every agent that uses it. Implementations are discovered as CDI
+ * beans by {@link StrategyRegistry} and looked up by {@link #getName()}, so they must be stateless
+ * and thread-safe; anything an agent needs to remember between rounds belongs in the state object
+ * from {@link #newState}, which is handed back through {@link BidderProfile#state()}.
+ *
+ * <p>Built-in strategies only look at the slots the agent values: a slot worth nothing can never
+ * yield positive utility, and agents only ever bid on (and therefore win) slots they value.
+ */
 public interface BiddingStrategy {
-  Bid decide(AuctionState state, Map<String, Double> valuations, String agentId);
 
+  /**
+   * Called for every agent in every round; should allocate nothing but the returned bid. Returns
+   * null to sit the round out.
+   */
+  SlotBid decide(MarketView market, BidderProfile bidder);
+
+  /**
+   * The strategy type scenarios refer to, matched case-insensitively.
+   */
   String getName();
+
+  /**
+   * Whether agents using this strategy want a single item and stop bidding once they hold one.
+   * Welfare optimization allocates them at most one item.
+   */
+  default boolean isUnitDemand() {
+    return false;
+  }
+
+  /**
+   * Whether the decision for {@code round} may differ from one made against the same prices and
+   * winners of the agent's valued slots: because it looks at the round number, at other slots or
+   * at state it changes itself. Agents are asked to decide every round for as long as this
+   * returns true; once it returns false they are only asked again after one of their valued slots
+   * changed, and their last decision is repeated in between. It must not return true again after
+   * having returned false.
+   *
+   * <p>The default is the safe answer for strategies that do not say.
+   *
+   * @param round the number of rounds resolved so far, as in {@link MarketView#round()}
+   */
+  default boolean isRoundDependent(int round) {
+    return true;
+  }
+
+  /**
+   * Whether agents using this strategy only bid for an item they do not hold, at an ask of its
+   * price plus one that is below their value for it. When every agent's strategy says so and no
+   * agent has such an item left, nobody will bid again and the run ends without playing out the
+   * empty round. Strategies that may bid for other reasons, such as completing a bundle, keep
+   * the default.
+   */
+  default boolean bidsOnlyForGain() {
+    return false;
+  }
+
+  /**
+   * Creates the per-agent state for a new agent, once, before its first round. Stateless
+   * strategies return null.
+   */
+  default Object newState(BidderProfile bidder) {
+    return null;
+  }
 }
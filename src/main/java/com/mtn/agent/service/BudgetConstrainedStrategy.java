@@ -0,0 +1,58 @@
+package com.mtn.agent.service;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class BudgetConstrainedStrategy implements BiddingStrategy {
+  @Override
+  public String getName() {
+    return "BUDGET";
+  }
+
+  @Override
+  public boolean isRoundDependent(int round) {
+    return false;
+  }
+
+  @Override
+  public boolean bidsOnlyForGain() {
+    return true;
+  }
+
+  @Override
+  public SlotBid decide(MarketView market, BidderProfile bidder) {
+    double budget = bidder.budgetLimit();
+
+    if (budget < 0) budget = Double.MAX_VALUE;
+
+    SlotValuations valuations = bidder.valuations();
+    int[] valuedSlots = valuations.valuedSlots();
+
+    double currentExposure = 0;
+    for (int slot : valuedSlots) {
+      if (market.winner(slot) == bidder.index()) {
+        currentExposure += market.price(slot);
+      }
+    }
+
+    int bestSlot = -1;
+    double bestAsk = 0.0;
+    double maxUtility = -1.0;
+
+    for (int slot : valuedSlots) {
+      if (market.winner(slot) == bidder.index()) continue;
+
+      double askPrice = market.price(slot) + 1.0;
+
+      if (currentExposure + askPrice > budget) continue;
+
+      double utility = valuations.value(slot) - askPrice;
+      if (utility > 0 && utility > maxUtility) {
+        maxUtility = utility;
+        bestSlot = slot;
+        bestAsk = askPrice;
+      }
+    }
+    return bestSlot < 0 ? null : new SlotBid(bestSlot, bestAsk);
+  }
+}
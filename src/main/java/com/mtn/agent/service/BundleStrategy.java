@@ -0,0 +1,41 @@
+package com.mtn.agent.service;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class BundleStrategy implements BiddingStrategy {
+  @Override
+  public String getName() {
+    return "BUNDLE";
+  }
+
+  @Override
+  public boolean isRoundDependent(int round) {
+    return false;
+  }
+
+  @Override
+  public SlotBid decide(MarketView market, BidderProfile bidder) {
+    SlotValuations valuations = bidder.valuations();
+    double totalBundleValue = 0;
+    double currentBundleCost = 0;
+    int slotToBid = -1;
+
+    for (int slot : valuations.valuedSlots()) {
+      totalBundleValue += valuations.value(slot);
+      if (market.winner(slot) == bidder.index()) {
+        currentBundleCost += market.price(slot);
+      } else {
+        currentBundleCost += (market.price(slot) + 1.0);
+        if (slotToBid < 0) slotToBid = slot;
+      }
+    }
+
+    if (currentBundleCost > totalBundleValue) return null;
+
+    if (slotToBid >= 0) {
+      return new SlotBid(slotToBid, market.price(slotToBid) + 1.0);
+    }
+    return null;
+  }
+}
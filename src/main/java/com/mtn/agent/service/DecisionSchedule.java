@@ -0,0 +1,114 @@
+package com.mtn.agent.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tracks which agents have to run their strategy in the next round. A strategy that does not
+ * depend on the round only reads the prices and winners of the slots its agent values, so its
+ * decision cannot change until one of those slots does; until then the agent's last decision is
+ * simply repeated. Agents with a round-dependent strategy are due every round for as long as
+ * {@link BiddingStrategy#isRoundDependent} says so.
+ *
+ * <p>Slots are mapped to the agents that value them by an inverted index built once per run, so
+ * marking a changed slot costs its number of interested agents. Not thread-safe: the run loop
+ * marks slots and reads the due agents between rounds.
+ */
+final class DecisionSchedule {
+
+  private final List<AgentService> agents;
+  // Agents valuing slot s are interested[interestStart[s] .. interestStart[s + 1])
+  private final int[] interestStart;
+  private final int[] interested;
+
+  // Round-dependent agents, first roundDependentCount entries; they drop out and never return
+  private final int[] roundDependent;
+  private int roundDependentCount;
+
+  private final boolean[] isDue;
+  private final int[] due;
+  private int dueCount;
+
+  DecisionSchedule(List<AgentService> agents, int slotCount) {
+    this.agents = agents;
+    int agentCount = agents.size();
+
+    interestStart = new int[slotCount + 1];
+    for (AgentService agent : agents) {
+      for (int slot : agent.getValuations().valuedSlots()) {
+        if (slot < slotCount) interestStart[slot + 1]++;
+      }
+    }
+    for (int s = 0; s < slotCount; s++) {
+      interestStart[s + 1] += interestStart[s];
+    }
+    interested = new int[interestStart[slotCount]];
+    int[] fill = Arrays.copyOf(interestStart, slotCount);
+    for (int i = 0; i < agentCount; i++) {
+      for (int slot : agents.get(i).getValuations().valuedSlots()) {
+        if (slot < slotCount) interested[fill[slot]++] = i;
+      }
+    }
+
+    roundDependent = new int[agentCount];
+    isDue = new boolean[agentCount];
+    due = new int[agentCount];
+    // Nobody has decided yet
+    for (int i = 0; i < agentCount; i++) {
+      roundDependent[i] = i;
+      isDue[i] = true;
+      due[i] = i;
+    }
+    roundDependentCount = agentCount;
+    dueCount = agentCount;
+  }
+
+  /**
+   * Marks every agent that values {@code slot} as due.
+   */
+  void slotChanged(int slot) {
+    for (int k = interestStart[slot], end = interestStart[slot + 1]; k < end; k++) {
+      markDue(interested[k]);
+    }
+  }
+
+  /**
+   * Adds the agents whose strategy depends on {@code round} and returns how many agents are due.
+   */
+  int prepare(int round) {
+    int kept = 0;
+    for (int k = 0; k < roundDependentCount; k++) {
+      int agent = roundDependent[k];
+      if (agents.get(agent).isRoundDependent(round)) {
+        roundDependent[kept++] = agent;
+        markDue(agent);
+      }
+    }
+    roundDependentCount = kept;
+    return dueCount;
+  }
+
+  /**
+   * The {@code k}-th due agent, in no particular order.
+   */
+  int dueAgent(int k) {
+    return due[k];
+  }
+
+  /**
+   * Forgets the due agents once they have decided.
+   */
+  void clear() {
+    for (int k = 0; k < dueCount; k++) {
+      isDue[due[k]] = false;
+    }
+    dueCount = 0;
+  }
+
+  private void markDue(int agent) {
+    if (!isDue[agent]) {
+      isDue[agent] = true;
+      due[dueCount++] = agent;
+    }
+  }
+}
@@ -3,6 +3,7 @@ package com.mtn.agent.service;
 import com.mtn.agent.domain.AgentPayoff;
 import com.mtn.agent.domain.AuctionItem;
 import com.mtn.agent.domain.AuctionState;
+import com.mtn.agent.domain.SlotIds;
 import com.mtn.agent.service.AgentService;
 
 import jakarta.enterprise.context.ApplicationScoped;
@@ -10,8 +11,11 @@ import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @ApplicationScoped
 public class EquilibriumAnalysisService {
@@ -100,7 +104,8 @@ public class EquilibriumAnalysisService {
 
   public ParetoEfficiencyResult calculateParetoEfficiency(
           AuctionState state,
-          Map<String, Map<String, Double>> agentValuations) {
+          Map<String, Map<String, Double>> agentValuations,
+          List<AgentService> agents) {
 
     Map<String, AgentPayoff> currentPayoffs = calculatePayoffs(state, agentValuations);
 
@@ -109,8 +114,9 @@ public class EquilibriumAnalysisService {
             .mapToDouble(AgentPayoff::totalValuation)
             .sum();
 
-    // Find Pareto-optimal allocation (greedy: assign each item to agent with highest valuation)
-    double paretoOptimalWelfare = calculateParetoOptimalWelfare(state, agentValuations);
+    // Welfare of the best allocation, respecting unit-demand agents
+    List<String> itemIds = state.items().stream().map(AuctionItem::id).toList();
+    double paretoOptimalWelfare = calculateParetoOptimalWelfare(itemIds, agentValuations, agents);
 
     double efficiencyRatio = paretoOptimalWelfare > 0
             ? currentSocialWelfare / paretoOptimalWelfare
@@ -127,31 +133,61 @@ public class EquilibriumAnalysisService {
     );
   }
 
-  private double calculateParetoOptimalWelfare(
-          AuctionState state,
-          Map<String, Map<String, Double>> agentValuations) {
+  /**
+   * Starts the incremental analysis of a simulation run from the market as it stands. The
+   * agents' indices must be their positions in {@code agents}.
+   */
+  EquilibriumTracker track(
+          MarketView market,
+          Map<String, Map<String, Double>> agentValuations,
+          List<AgentService> agents) {
 
-    // Greedy allocation: assign each item to agent with highest valuation
-    double totalWelfare = 0.0;
+    List<String> itemIds = new ArrayList<>(market.slotCount());
+    for (int slot = 0; slot < market.slotCount(); slot++) {
+      itemIds.add(SlotIds.id(slot));
+    }
 
-    for (AuctionItem item : state.items()) {
-      double maxValuation = 0.0;
-      String bestAgent = null;
+    SlotValuations[] valuations = new SlotValuations[agents.size()];
+    for (AgentService agent : agents) {
+      valuations[agent.getIndex()] = agent.getValuations();
+    }
 
-      for (Map.Entry<String, Map<String, Double>> entry : agentValuations.entrySet()) {
-        double valuation = entry.getValue().getOrDefault(item.id(), 0.0);
-        if (valuation > maxValuation) {
-          maxValuation = valuation;
-          bestAgent = entry.getKey();
-        }
-      }
+    // calculatePayoffs fills a HashMap in key order of agentValuations and welfare is summed in
+    // that map's iteration order; an identically built map iterates the same way
+    Map<String, Integer> indices = new HashMap<>();
+    for (AgentService agent : agents) {
+      indices.put(agent.getAgentId(), agent.getIndex());
+    }
+    Map<String, Integer> payoffOrder = new HashMap<>();
+    for (String agentId : agentValuations.keySet()) {
+      payoffOrder.put(agentId, indices.get(agentId));
+    }
+    int[] welfareOrder = payoffOrder.values().stream()
+            .filter(Objects::nonNull)
+            .mapToInt(Integer::intValue)
+            .toArray();
+
+    EquilibriumTracker tracker = new EquilibriumTracker(
+            valuations, market.slotCount(), calculateParetoOptimalWelfare(itemIds, agentValuations, agents), welfareOrder);
+    for (int slot = 0; slot < market.slotCount(); slot++) {
+      tracker.update(market, slot);
+    }
+    return tracker;
+  }
 
-      if (bestAgent != null) {
-        totalWelfare += maxValuation; // Assuming price = 0 in optimal allocation
+  private double calculateParetoOptimalWelfare(
+          List<String> itemIds,
+          Map<String, Map<String, Double>> agentValuations,
+          List<AgentService> agents) {
+
+    Set<String> unitDemandAgents = new HashSet<>();
+    for (AgentService agent : agents) {
+      if (agent.isUnitDemand()) {
+        unitDemandAgents.add(agent.getAgentId());
       }
     }
 
-    return totalWelfare;
+    return WelfareOptimizer.optimalWelfare(itemIds, agentValuations, unitDemandAgents);
   }
 
 
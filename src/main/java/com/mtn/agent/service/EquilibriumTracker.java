@@ -0,0 +1,168 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.EquilibriumRoundStat;
+
+import java.util.Arrays;
+
+/**
+ * Per-run, incremental counterpart of {@link EquilibriumAnalysisService#checkNashEquilibrium} and
+ * {@link EquilibriumAnalysisService#calculateParetoEfficiency} for the simulation loop. Valuations
+ * are fixed for a run, so the optimal welfare is computed once; after that each round only
+ * revisits the agents that value an item whose price or winner changed.
+ *
+ * <p>For every agent it keeps the number of items it does not hold but could profitably take at
+ * the next ask, so the Nash check reduces to counting agents with a non-zero count. A second
+ * count, without the analysis' threshold, tells whether anyone could gain anything at all, which
+ * is what the early termination of a run needs. Welfare is re-summed each round in O(agents + items).
+ */
+final class EquilibriumTracker {
+
+  // Same threshold and ask increment as the full analysis
+  private static final double GAIN_THRESHOLD = 1e-6;
+  private static final double ASK_INCREMENT = 1.0;
+
+  private final SlotValuations[] valuations;
+  private final int[][] valuers;
+  private final double optimalWelfare;
+
+  // Agent indices in the order the full analysis sums payoffs, and scratch space for the sum
+  private final int[] welfareOrder;
+  private final double[] agentWelfare;
+  private final double[] orderedWelfare;
+
+  private final double[] prices;
+  private final int[] winners;
+  private final int[] improvingItems;
+  private int agentsWhoCanImprove;
+  private final int[] gainfulItems;
+  private int agentsWhoCanGain;
+
+  EquilibriumTracker(SlotValuations[] valuations, int slotCount, double optimalWelfare, int[] welfareOrder) {
+    this.valuations = valuations;
+    this.optimalWelfare = optimalWelfare;
+    this.welfareOrder = welfareOrder;
+    this.agentWelfare = new double[valuations.length];
+    this.orderedWelfare = new double[welfareOrder.length];
+    this.valuers = invert(valuations, slotCount);
+    this.prices = new double[slotCount];
+    this.winners = new int[slotCount];
+    this.improvingItems = new int[valuations.length];
+    this.gainfulItems = new int[valuations.length];
+    Arrays.fill(winners, MarketView.NO_WINNER);
+
+    for (int agent = 0; agent < valuations.length; agent++) {
+      for (int slot : valuations[agent].valuedSlots()) {
+        if (canImprove(agent, slot, 0.0, MarketView.NO_WINNER)) {
+          improvingItems[agent]++;
+        }
+        if (canGain(agent, slot, 0.0, MarketView.NO_WINNER)) {
+          gainfulItems[agent]++;
+        }
+      }
+      if (improvingItems[agent] > 0) agentsWhoCanImprove++;
+      if (gainfulItems[agent] > 0) agentsWhoCanGain++;
+    }
+  }
+
+  double optimalWelfare() {
+    return optimalWelfare;
+  }
+
+  /**
+   * Brings the tracker up to date with a changed slot, as it stands in {@code market}.
+   */
+  void update(MarketView market, int slot) {
+    double oldPrice = prices[slot];
+    int oldWinner = winners[slot];
+    double newPrice = market.price(slot);
+    int newWinner = market.winner(slot);
+
+    for (int agent : valuers[slot]) {
+      boolean before = canImprove(agent, slot, oldPrice, oldWinner);
+      boolean after = canImprove(agent, slot, newPrice, newWinner);
+      if (before != after) {
+        if (after) {
+          if (improvingItems[agent]++ == 0) agentsWhoCanImprove++;
+        } else {
+          if (--improvingItems[agent] == 0) agentsWhoCanImprove--;
+        }
+      }
+
+      before = canGain(agent, slot, oldPrice, oldWinner);
+      after = canGain(agent, slot, newPrice, newWinner);
+      if (before != after) {
+        if (after) {
+          if (gainfulItems[agent]++ == 0) agentsWhoCanGain++;
+        } else {
+          if (--gainfulItems[agent] == 0) agentsWhoCanGain--;
+        }
+      }
+    }
+    prices[slot] = newPrice;
+    winners[slot] = newWinner;
+  }
+
+  EquilibriumRoundStat stat(int round) {
+    // Recomputed rather than kept as a running total, and summed exactly like the full analysis
+    // (per agent in item order, then across agents), so the result is identical to the bit
+    Arrays.fill(agentWelfare, 0.0);
+    for (int slot = 0; slot < winners.length; slot++) {
+      int winner = winners[slot];
+      if (winner != MarketView.NO_WINNER && winner < valuations.length) {
+        agentWelfare[winner] += valuations[winner].value(slot);
+      }
+    }
+    for (int i = 0; i < welfareOrder.length; i++) {
+      orderedWelfare[i] = agentWelfare[welfareOrder[i]];
+    }
+    double socialWelfare = Arrays.stream(orderedWelfare).sum();
+    double efficiencyRatio = optimalWelfare > 0 ? socialWelfare / optimalWelfare : 0.0;
+
+    return new EquilibriumRoundStat(
+            round,
+            agentsWhoCanImprove == 0,
+            agentsWhoCanImprove,
+            efficiencyRatio,
+            socialWelfare
+    );
+  }
+
+  /**
+   * Agents that value some item they do not hold above its next ask, by however little.
+   */
+  int agentsWhoCanGain() {
+    return agentsWhoCanGain;
+  }
+
+  private boolean canImprove(int agent, int slot, double price, int winner) {
+    if (winner == agent) return false;
+    double askPrice = price + ASK_INCREMENT;
+    return valuations[agent].value(slot) - askPrice > GAIN_THRESHOLD;
+  }
+
+  // The condition under which a strategy that bids only for a gain bids at all
+  private boolean canGain(int agent, int slot, double price, int winner) {
+    return winner != agent && valuations[agent].value(slot) - (price + ASK_INCREMENT) > 0;
+  }
+
+  // For each slot, the agents that value it; nobody else's check can change with that slot
+  private static int[][] invert(SlotValuations[] valuations, int slotCount) {
+    int[] counts = new int[slotCount];
+    for (SlotValuations agentValues : valuations) {
+      for (int slot : agentValues.valuedSlots()) {
+        if (slot < slotCount) counts[slot]++;
+      }
+    }
+    int[][] valuers = new int[slotCount][];
+    for (int slot = 0; slot < slotCount; slot++) {
+      valuers[slot] = new int[counts[slot]];
+      counts[slot] = 0;
+    }
+    for (int agent = 0; agent < valuations.length; agent++) {
+      for (int slot : valuations[agent].valuedSlots()) {
+        if (slot < slotCount) valuers[slot][counts[slot]++] = agent;
+      }
+    }
+    return valuers;
+  }
+}
@@ -0,0 +1,50 @@
+package com.mtn.agent.service;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class FlexibleStrategy implements BiddingStrategy {
+  @Override
+  public String getName() {
+    return "FLEXIBLE";
+  }
+
+  @Override
+  public boolean isUnitDemand() {
+    return true;
+  }
+
+  @Override
+  public boolean isRoundDependent(int round) {
+    return false;
+  }
+
+  @Override
+  public boolean bidsOnlyForGain() {
+    return true;
+  }
+
+  @Override
+  public SlotBid decide(MarketView market, BidderProfile bidder) {
+    SlotValuations valuations = bidder.valuations();
+    int[] valuedSlots = valuations.valuedSlots();
+
+    for (int slot : valuedSlots) {
+      if (market.winner(slot) == bidder.index()) return null;
+    }
+
+    int bestSlot = -1;
+    double minPrice = Double.MAX_VALUE;
+
+    for (int slot : valuedSlots) {
+      double askPrice = market.price(slot) + 1.0;
+      double utility = valuations.value(slot) - askPrice;
+
+      if (utility > 0 && askPrice < minPrice) {
+        minPrice = askPrice;
+        bestSlot = slot;
+      }
+    }
+    return bestSlot < 0 ? null : new SlotBid(bestSlot, minPrice);
+  }
+}
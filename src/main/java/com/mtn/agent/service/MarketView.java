@@ -0,0 +1,46 @@
+package com.mtn.agent.service;
+
+/**
+ * Read-only, index-based view of the auction used by in-process strategies: prices and winners
+ * are plain arrays addressed by slot index, winners by agent index (-1 when unsold).
+ *
+ * <p>The view shares the auctioneer's arrays instead of copying them, so it reflects the state
+ * of {@link #round()} only until the next round is resolved. The simulation loop never decides
+ * and resolves at the same time, which is what makes this safe.
+ */
+public final class MarketView {
+
+  public static final int NO_WINNER = -1;
+
+  private final double[] prices;
+  private final int[] winners;
+  private final boolean active;
+  private final int round;
+
+  MarketView(double[] prices, int[] winners, boolean active, int round) {
+    this.prices = prices;
+    this.winners = winners;
+    this.active = active;
+    this.round = round;
+  }
+
+  public int slotCount() {
+    return prices.length;
+  }
+
+  public double price(int slot) {
+    return prices[slot];
+  }
+
+  public int winner(int slot) {
+    return winners[slot];
+  }
+
+  public boolean isActive() {
+    return active;
+  }
+
+  public int round() {
+    return round;
+  }
+}
@@ -0,0 +1,169 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.ScenarioData;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Runs many independent replications of a scenario in parallel and aggregates their outcomes.
+ */
+@ApplicationScoped
+public class MonteCarloService {
+
+  private static final Logger LOG = Logger.getLogger(MonteCarloService.class);
+
+  @Inject
+  SimulationRunner simulationRunner;
+
+  @ConfigProperty(name = "auction.montecarlo.parallelism", defaultValue = "0")
+  int parallelism;
+
+  private volatile ForkJoinPool pool;
+
+  /**
+   * @throws IllegalArgumentException if an agent names a strategy that is not available
+   */
+  public MonteCarloResult run(ScenarioData scenario, int runs, long seed) {
+    simulationRunner.checkStrategies(scenario);
+    long start = System.nanoTime();
+
+    // Split every replication's stream up front so results do not depend on scheduling order
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] streams = new SplittableRandom[runs];
+    for (int i = 0; i < runs; i++) {
+      streams[i] = root.split();
+    }
+
+    double[] revenue = new double[runs];
+    double[] rounds = new double[runs];
+    double[] efficiency = new double[runs];
+    double[] nashDistance = new double[runs];
+
+    try {
+      pool().submit(() -> IntStream.range(0, runs).parallel().forEach(i -> {
+        SimulationSession replica = simulationRunner.prepareReplication(scenario, streams[i]);
+        simulationRunner.run(replica, SimulationMode.BATCH, false);
+
+        List<RoundStat> stats = replica.statsLog();
+        List<EquilibriumRoundStat> equilibrium = replica.equilibriumLog();
+
+        rounds[i] = stats.size();
+        revenue[i] = stats.isEmpty() ? 0.0 : stats.get(stats.size() - 1).revenue();
+        if (!equilibrium.isEmpty()) {
+          EquilibriumRoundStat last = equilibrium.get(equilibrium.size() - 1);
+          efficiency[i] = last.paretoEfficiencyRatio();
+          nashDistance[i] = last.agentsWhoCanImprove();
+        }
+      })).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Monte Carlo run interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Monte Carlo replication failed", e.getCause());
+    }
+
+    long nashReached = Arrays.stream(nashDistance).filter(d -> d == 0).count();
+    long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+    LOG.infov("Monte Carlo: {0} runs of scenario {1} in {2} ms", runs, scenario.id(), elapsedMs);
+
+    return new MonteCarloResult(
+            scenario.id(),
+            runs,
+            seed,
+            elapsedMs,
+            (double) nashReached / runs,
+            Distribution.of(revenue),
+            Distribution.of(rounds),
+            Distribution.of(efficiency),
+            Distribution.of(nashDistance)
+    );
+  }
+
+  private ForkJoinPool pool() {
+    ForkJoinPool current = pool;
+    if (current == null) {
+      synchronized (this) {
+        if (pool == null) {
+          int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+          pool = new ForkJoinPool(threads);
+        }
+        current = pool;
+      }
+    }
+    return current;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  // Result classes
+  public record MonteCarloResult(
+          Long scenarioId,
+          int runs,
+          long seed,
+          long elapsedMs,
+          double nashEquilibriumRate,
+          Distribution revenue,
+          Distribution roundsToTermination,
+          Distribution paretoEfficiencyRatio,
+          Distribution nashDistance
+  ) {
+  }
+
+  public record Distribution(
+          double mean,
+          double stdDev,
+          double min,
+          double p5,
+          double p25,
+          double median,
+          double p75,
+          double p95,
+          double max
+  ) {
+
+    static Distribution of(double[] values) {
+      double[] sorted = values.clone();
+      Arrays.sort(sorted);
+
+      double mean = Arrays.stream(sorted).average().orElse(0.0);
+      double variance = Arrays.stream(sorted).map(v -> (v - mean) * (v - mean)).sum() / Math.max(1, sorted.length - 1);
+
+      return new Distribution(
+              mean,
+              Math.sqrt(variance),
+              sorted[0],
+              percentile(sorted, 0.05),
+              percentile(sorted, 0.25),
+              percentile(sorted, 0.50),
+              percentile(sorted, 0.75),
+              percentile(sorted, 0.95),
+              sorted[sorted.length - 1]
+      );
+    }
+
+    // Linear interpolation between closest ranks
+    private static double percentile(double[] sorted, double p) {
+      double rank = p * (sorted.length - 1);
+      int lower = (int) Math.floor(rank);
+      int upper = (int) Math.ceil(rank);
+      return sorted[lower] + (rank - lower) * (sorted[upper] - sorted[lower]);
+    }
+  }
+}
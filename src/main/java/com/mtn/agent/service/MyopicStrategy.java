@@ -0,0 +1,43 @@
+package com.mtn.agent.service;
+
+import jakarta.inject.Singleton;
+
+@Singleton
+public class MyopicStrategy implements BiddingStrategy {
+  @Override
+  public String getName() {
+    return "MYOPIC";
+  }
+
+  @Override
+  public boolean isRoundDependent(int round) {
+    return false;
+  }
+
+  @Override
+  public boolean bidsOnlyForGain() {
+    return true;
+  }
+
+  @Override
+  public SlotBid decide(MarketView market, BidderProfile bidder) {
+    SlotValuations valuations = bidder.valuations();
+    int bestSlot = -1;
+    double bestAsk = 0.0;
+    double maxUtility = -1.0;
+
+    for (int slot : valuations.valuedSlots()) {
+      if (market.winner(slot) == bidder.index()) continue;
+
+      double askPrice = market.price(slot) + 1.0;
+      double utility = valuations.value(slot) - askPrice;
+
+      if (utility > 0 && utility > maxUtility) {
+        maxUtility = utility;
+        bestSlot = slot;
+        bestAsk = askPrice;
+      }
+    }
+    return bestSlot < 0 ? null : new SlotBid(bestSlot, bestAsk);
+  }
+}
@@ -2,16 +2,12 @@ package com.mtn.agent.service;
 
 import com.mtn.agent.domain.AgentPayoff;
 import com.mtn.agent.domain.AuctionItem;
-import com.mtn.agent.domain.BidRecord;
 import com.mtn.agent.domain.EquilibriumRoundStat;
 import com.mtn.agent.domain.RoundStat;
 import com.mtn.agent.service.EquilibriumAnalysisService.NashEquilibriumResult;
 import com.mtn.agent.service.EquilibriumAnalysisService.ParetoEfficiencyResult;
 import jakarta.enterprise.context.ApplicationScoped;
-import tech.tablesaw.api.DoubleColumn;
-import tech.tablesaw.api.IntColumn;
-import tech.tablesaw.api.StringColumn;
-import tech.tablesaw.api.Table;
+import jakarta.inject.Inject;
 import tech.tablesaw.plotly.components.Axis;
 import tech.tablesaw.plotly.components.Figure;
 import tech.tablesaw.plotly.components.Layout;
@@ -20,41 +16,156 @@ import tech.tablesaw.plotly.components.Marker;
 import tech.tablesaw.plotly.traces.BarTrace;
 import tech.tablesaw.plotly.traces.ScatterTrace;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
+/**
+ * Renders the Plotly dashboard of a session. A rendered page is kept on its session together with
+ * the session version it was rendered at, so it is only rebuilt once a round has been resolved
+ * since; while the run goes on, the page itself polls {@link #rounds} and appends the new rounds
+ * to its charts instead of reloading. Pages of a running session take their Nash and Pareto cards
+ * from the latest tracked round, so the full equilibrium analysis only runs for the finished page.
+ */
 @ApplicationScoped
 public class PlotService {
 
+  private static final String REVENUE_CHART = "chart_revenue";
+  private static final String BIDS_CHART = "chart_bids";
+  private static final String AGENTS_CHART = "chart_agents";
+  private static final String NASH_CHART = "chart_nash";
+  private static final String IMPROVE_CHART = "chart_improve";
+  private static final String PARETO_CHART = "chart_pareto";
+
+  // Between polls of a running session's new rounds
+  private static final int POLL_INTERVAL_MS = 1000;
+
+  @Inject
+  SimulationRunner runner;
+
+  /**
+   * The session's dashboard, rendered again only if the session has changed since it was last
+   * rendered.
+   */
+  public Dashboard dashboard(SimulationSession session) {
+    // Read before rendering: if a round lands meanwhile, the page is merely fresher than its version
+    long version = session.getVersion();
+    Dashboard cached = session.dashboard();
+    if (cached != null && cached.version() == version) {
+      return cached;
+    }
+
+    boolean running = session.isRunning();
+    List<RoundStat> stats = session.getStatsHistory();
+    List<EquilibriumRoundStat> equilibrium = session.getEquilibriumHistory();
+    if (running && stats.size() > equilibrium.size()) {
+      // Leave a half-logged round to the updates, as they would skip it in the charts it is missing from
+      stats = stats.subList(0, equilibrium.size());
+    }
+
+    String html;
+    if (running) {
+      // A page is rendered per round while the run goes on: its cards come from the round's tracked
+      // stat instead of the full analysis, which rebuilds every payoff and solves for the optimum
+      EquilibriumRoundStat latest = equilibrium.isEmpty() ? null : equilibrium.get(equilibrium.size() - 1);
+      html = generateDashboard(stats, session.getBidsPerAgent(), session.getFinalItems(), null,
+              latest == null ? null : trackedPareto(latest, session.getOptimalWelfare()), latest, equilibrium,
+              session.getId());
+    } else {
+      // Rendered once: the version no longer changes after the run
+      html = generateDashboard(stats, session.getBidsPerAgent(), session.getFinalItems(),
+              runner.getNashEquilibriumResult(session), runner.getParetoEfficiencyResult(session), null,
+              equilibrium, null);
+    }
+    String etag = session.getId() + "-" + version + "-" + Integer.toHexString(html.hashCode());
+    Dashboard dashboard = new Dashboard(version, etag, html);
+    session.setDashboard(dashboard);
+    return dashboard;
+  }
+
+  /**
+   * The per-round series of the rounds after {@code fromRound}, for appending to the charts of a
+   * dashboard that already shows the rounds up to it.
+   */
+  public RoundSeries rounds(SimulationSession session, int fromRound) {
+    boolean running = session.isRunning();
+    List<RoundStat> stats = session.getStatsSince(fromRound);
+    List<EquilibriumRoundStat> equilibrium = session.getEquilibriumSince(fromRound);
+    // A round's stats are logged before its equilibrium stat; only report rounds that have both
+    int count = Math.min(stats.size(), equilibrium.size());
+
+    int[] rounds = new int[count];
+    double[] revenue = new double[count];
+    int[] bids = new int[count];
+    int[] nash = new int[count];
+    int[] agentsWhoCanImprove = new int[count];
+    double[] paretoEfficiency = new double[count];
+    for (int i = 0; i < count; i++) {
+      RoundStat stat = stats.get(i);
+      EquilibriumRoundStat eq = equilibrium.get(i);
+      rounds[i] = stat.round();
+      revenue[i] = stat.revenue();
+      bids[i] = stat.totalBids();
+      nash[i] = eq.isNashEquilibrium() ? 1 : 0;
+      agentsWhoCanImprove[i] = eq.agentsWhoCanImprove();
+      paretoEfficiency[i] = eq.paretoEfficiencyRatio();
+    }
+    return new RoundSeries(session.getId(), running, rounds, revenue, bids, nash, agentsWhoCanImprove, paretoEfficiency);
+  }
+
   public String generateDashboard(
           List<RoundStat> stats,
-          List<BidRecord> bids,
+          Map<String, Long> bidsPerAgent,
           List<AuctionItem> finalItems,
           NashEquilibriumResult nashResult,
           ParetoEfficiencyResult paretoResult,
           List<EquilibriumRoundStat> equilibriumHistory) {
+    return generateDashboard(stats, bidsPerAgent, finalItems, nashResult, paretoResult, null, equilibriumHistory,
+            null);
+  }
 
-    Table statsTable = Table.create("Stats")
-            .addColumns(
-                    IntColumn.create("Round", stats.stream().mapToInt(RoundStat::round).toArray()),
-                    DoubleColumn.create("Revenue", stats.stream().mapToDouble(RoundStat::revenue).toArray()),
-                    IntColumn.create("Bids", stats.stream().mapToInt(RoundStat::totalBids).toArray())
-            );
-
-    Map<String, Long> bidsPerAgent = bids.stream()
-            .collect(Collectors.groupingBy(BidRecord::agentName, Collectors.counting()));
+  // The Pareto card of a running session, from the tracked welfare and the optimum solved at the start
+  private static ParetoEfficiencyResult trackedPareto(EquilibriumRoundStat latest, double optimalWelfare) {
+    if (Double.isNaN(optimalWelfare)) return null;
+    return new ParetoEfficiencyResult(
+            Math.abs(latest.socialWelfare() - optimalWelfare) < 0.01,
+            latest.socialWelfare(),
+            optimalWelfare,
+            latest.paretoEfficiencyRatio(),
+            null);
+  }
 
-    Table agentTable = Table.create("AgentActivity")
-            .addColumns(
-                    StringColumn.create("Agent", bidsPerAgent.keySet().stream().toList()),
-                    DoubleColumn.create("Count", bidsPerAgent.values().stream().mapToDouble(Long::doubleValue).toArray())
-            );
+  /**
+   * @param latestRound   stands in for {@code nashResult} while the run goes on, or null
+   * @param liveSessionId the session to poll for new rounds, or null for a page that stays as it is
+   */
+  private String generateDashboard(
+          List<RoundStat> stats,
+          Map<String, Long> bidsPerAgent,
+          List<AuctionItem> finalItems,
+          NashEquilibriumResult nashResult,
+          ParetoEfficiencyResult paretoResult,
+          EquilibriumRoundStat latestRound,
+          List<EquilibriumRoundStat> equilibriumHistory,
+          Long liveSessionId) {
+
+    // Traces are built straight from arrays: Tablesaw's Table would scan the classpath for its readers
+    double[] rounds = new double[stats.size()];
+    String[] roundLabels = new String[stats.size()];
+    double[] revenues = new double[stats.size()];
+    double[] bidCounts = new double[stats.size()];
+    for (int i = 0; i < rounds.length; i++) {
+      RoundStat stat = stats.get(i);
+      rounds[i] = stat.round();
+      roundLabels[i] = Integer.toString(stat.round());
+      revenues[i] = stat.revenue();
+      bidCounts[i] = stat.totalBids();
+    }
 
+    List<String> agentNames = new ArrayList<>(bidsPerAgent.keySet());
+    double[] agentCounts = bidsPerAgent.values().stream().mapToDouble(Long::doubleValue).toArray();
 
-    ScatterTrace revenueTrace = ScatterTrace.builder(
-                    statsTable.numberColumn("Round"), statsTable.numberColumn("Revenue"))
+    ScatterTrace revenueTrace = ScatterTrace.builder(rounds, revenues)
             .mode(ScatterTrace.Mode.LINE_AND_MARKERS)
             .name("Revenue")
             .line(Line.builder().color("teal").width(3).build())
@@ -65,8 +176,7 @@ public class PlotService {
             revenueTrace
     );
 
-    BarTrace bidsTrace = BarTrace.builder(
-                    statsTable.intColumn("Round").asStringColumn(), statsTable.numberColumn("Bids"))
+    BarTrace bidsTrace = BarTrace.builder(roundLabels, bidCounts)
             .marker(Marker.builder().color("salmon").build())
             .build();
 
@@ -76,7 +186,7 @@ public class PlotService {
     );
 
     BarTrace agentTrace = BarTrace.builder(
-                    agentTable.stringColumn("Agent"), agentTable.numberColumn("Count"))
+                    agentNames.toArray(), agentCounts)
             .marker(Marker.builder().color("#6610f2").build())
             .build();
 
@@ -119,15 +229,25 @@ public class PlotService {
     }
 
     String nashStatusHtml = "";
+    boolean nash = false;
+    String agentsWhoCanImprove = null;
     if (nashResult != null) {
-      String nashStatus = nashResult.isNashEquilibrium()
-              ? "<span style='color:green; font-weight:bold; font-size:1.2em'>✓ NASH EQUILIBRIUM</span>"
-              : "<span style='color:orange; font-weight:bold; font-size:1.2em'>⚠ NOT NASH EQUILIBRIUM</span>";
-
-      String agentsWhoCanImprove = nashResult.agentsWhoCanImprove().isEmpty()
+      nash = nashResult.isNashEquilibrium();
+      agentsWhoCanImprove = nashResult.agentsWhoCanImprove().isEmpty()
               ? "<p style='color:green'>No agent can improve by changing strategy.</p>"
               : "<p style='color:orange'>Agents who can improve: <strong>" +
               String.join(", ", nashResult.agentsWhoCanImprove()) + "</strong></p>";
+    } else if (latestRound != null) {
+      nash = latestRound.isNashEquilibrium();
+      agentsWhoCanImprove = latestRound.agentsWhoCanImprove() == 0
+              ? "<p style='color:green'>No agent can improve by changing strategy.</p>"
+              : "<p style='color:orange'>Agents who can improve after round " + latestRound.round() + ": <strong>"
+              + latestRound.agentsWhoCanImprove() + "</strong> (named once the run has finished)</p>";
+    }
+    if (agentsWhoCanImprove != null) {
+      String nashStatus = nash
+              ? "<span style='color:green; font-weight:bold; font-size:1.2em'>✓ NASH EQUILIBRIUM</span>"
+              : "<span style='color:orange; font-weight:bold; font-size:1.2em'>⚠ NOT NASH EQUILIBRIUM</span>";
 
       nashStatusHtml = String.format("""
           <div class="equilibrium-card" style="padding:20px; background:%s; border-radius:8px; margin:10px 0;">
@@ -136,7 +256,7 @@ public class PlotService {
               %s
           </div>
           """,
-              nashResult.isNashEquilibrium() ? "#e8f5e9" : "#fff3e0",
+              nash ? "#e8f5e9" : "#fff3e0",
               nashStatus,
               agentsWhoCanImprove
       );
@@ -174,16 +294,19 @@ public class PlotService {
     String convergenceScriptsHtml = "";
 
     if (equilibriumHistory != null && !equilibriumHistory.isEmpty()) {
-      Table convTable = Table.create("EquilibriumConvergence")
-              .addColumns(
-                      IntColumn.create("Round", equilibriumHistory.stream().mapToInt(EquilibriumRoundStat::round).toArray()),
-                      IntColumn.create("IsNash", equilibriumHistory.stream().mapToInt(e -> e.isNashEquilibrium() ? 1 : 0).toArray()),
-                      IntColumn.create("AgentsImprove", equilibriumHistory.stream().mapToInt(EquilibriumRoundStat::agentsWhoCanImprove).toArray()),
-                      DoubleColumn.create("ParetoEff", equilibriumHistory.stream().mapToDouble(EquilibriumRoundStat::paretoEfficiencyRatio).toArray())
-              );
-
-      ScatterTrace nashConvTrace = ScatterTrace.builder(
-                      convTable.numberColumn("Round"), convTable.numberColumn("IsNash"))
+      double[] convRounds = new double[equilibriumHistory.size()];
+      double[] isNash = new double[convRounds.length];
+      double[] agentsImprove = new double[convRounds.length];
+      double[] paretoEff = new double[convRounds.length];
+      for (int i = 0; i < convRounds.length; i++) {
+        EquilibriumRoundStat stat = equilibriumHistory.get(i);
+        convRounds[i] = stat.round();
+        isNash[i] = stat.isNashEquilibrium() ? 1 : 0;
+        agentsImprove[i] = stat.agentsWhoCanImprove();
+        paretoEff[i] = stat.paretoEfficiencyRatio();
+      }
+
+      ScatterTrace nashConvTrace = ScatterTrace.builder(convRounds, isNash)
               .mode(ScatterTrace.Mode.LINE_AND_MARKERS)
               .name("Nash (1=yes, 0=no)")
               .line(Line.builder().color("green").width(2).build())
@@ -200,8 +323,7 @@ public class PlotService {
               nashConvTrace
       );
 
-      ScatterTrace improveConvTrace = ScatterTrace.builder(
-                      convTable.numberColumn("Round"), convTable.numberColumn("AgentsImprove"))
+      ScatterTrace improveConvTrace = ScatterTrace.builder(convRounds, agentsImprove)
               .mode(ScatterTrace.Mode.LINE_AND_MARKERS)
               .name("Agents who can improve")
               .line(Line.builder().color("orange").width(2).build())
@@ -218,8 +340,7 @@ public class PlotService {
               improveConvTrace
       );
 
-      ScatterTrace paretoConvTrace = ScatterTrace.builder(
-                      convTable.numberColumn("Round"), convTable.numberColumn("ParetoEff"))
+      ScatterTrace paretoConvTrace = ScatterTrace.builder(convRounds, paretoEff)
               .mode(ScatterTrace.Mode.LINE_AND_MARKERS)
               .name("Pareto efficiency ratio")
               .line(Line.builder().color("royalblue").width(2).build())
@@ -236,9 +357,9 @@ public class PlotService {
               paretoConvTrace
       );
 
-      String id4 = cleanUUID();
-      String id5 = cleanUUID();
-      String id6 = cleanUUID();
+      String id4 = NASH_CHART;
+      String id5 = IMPROVE_CHART;
+      String id6 = PARETO_CHART;
 
       convergenceCardsHtml = String.format("""
           <div class="card"><div id="%s"></div></div>
@@ -253,9 +374,12 @@ public class PlotService {
       );
     }
 
-    String id1 = cleanUUID();
-    String id2 = cleanUUID();
-    String id3 = cleanUUID();
+    String id1 = REVENUE_CHART;
+    String id2 = BIDS_CHART;
+    String id3 = AGENTS_CHART;
+
+    int lastRound = stats.isEmpty() ? 0 : stats.get(stats.size() - 1).round();
+    String updateScriptHtml = liveSessionId == null ? "" : updateScript(liveSessionId, lastRound);
 
     return """
         <html>
@@ -308,28 +432,73 @@ public class PlotService {
 
             %s %s %s
             %s
+            %s
         </body>
         </html>
         """.formatted(
                     allocationTable.toString(),
                     nashStatusHtml,
                     paretoStatusHtml,
-                    payoffTable.length() > 0 ? payoffTable.toString() : "<p>No payoff data available</p>",
+                    payoffTable.length() > 0 ? payoffTable.toString()
+                            : liveSessionId != null ? "<p>Payoffs are shown once the run has finished</p>"
+                            : "<p>No payoff data available</p>",
                     id1, id2, id3,
                     convergenceCardsHtml,
                     revenueFig.asJavascript(id1).replace("<script>", "<script>"),
                     bidsFig.asJavascript(id2),
                     agentFig.asJavascript(id3),
-                    convergenceScriptsHtml
+                    convergenceScriptsHtml,
+                    updateScriptHtml
             ).replace("<script><script>", "<script>")
             .replace("</script></script>", "</script>");
   }
 
-  public String generateDashboard(List<RoundStat> stats, List<BidRecord> bids, List<AuctionItem> finalItems) {
-    return generateDashboard(stats, bids, finalItems, null, null, null);
+  public String generateDashboard(List<RoundStat> stats, Map<String, Long> bidsPerAgent, List<AuctionItem> finalItems) {
+    return generateDashboard(stats, bidsPerAgent, finalItems, null, null, null);
+  }
+
+  // Appends the rounds resolved since the page was rendered; reloads once the run is over, for the final tables
+  private static String updateScript(long sessionId, int lastRound) {
+    return """
+        <script>
+        (function() {
+            var lastRound = %d;
+            function extend(id, x, y) {
+                if (document.getElementById(id)) Plotly.extendTraces(id, {x: [x], y: [y]}, [0]);
+            }
+            function poll() {
+                fetch('/plot/data?sessionId=%d&fromRound=' + lastRound)
+                    .then(function(response) { return response.json(); })
+                    .then(function(data) {
+                        if (data.rounds.length > 0) {
+                            extend('%s', data.rounds, data.revenue);
+                            extend('%s', data.rounds.map(String), data.bids);
+                            extend('%s', data.rounds, data.nash);
+                            extend('%s', data.rounds, data.agentsWhoCanImprove);
+                            extend('%s', data.rounds, data.paretoEfficiency);
+                            lastRound = data.rounds[data.rounds.length - 1];
+                        }
+                        if (data.running) setTimeout(poll, %d); else location.reload();
+                    })
+                    .catch(function() { setTimeout(poll, %d); });
+            }
+            setTimeout(poll, %d);
+        })();
+        </script>
+        """.formatted(lastRound, sessionId, REVENUE_CHART, BIDS_CHART, NASH_CHART, IMPROVE_CHART, PARETO_CHART,
+            POLL_INTERVAL_MS, POLL_INTERVAL_MS, POLL_INTERVAL_MS);
+  }
+
+  /**
+   * A rendered dashboard and the session version it shows.
+   */
+  public record Dashboard(long version, String etag, String html) {
   }
 
-  private String cleanUUID() {
-    return "chart_" + UUID.randomUUID().toString().replace("-", "");
+  /**
+   * New rounds for a dashboard's charts, one array entry per round.
+   */
+  public record RoundSeries(Long sessionId, boolean running, int[] rounds, double[] revenue, int[] bids, int[] nash,
+                            int[] agentsWhoCanImprove, double[] paretoEfficiency) {
   }
 }
\ No newline at end of file
@@ -0,0 +1,83 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.AgentImportResult;
+import com.mtn.agent.domain.AgentPayoff;
+import com.mtn.agent.domain.AuctionDelta;
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.AuctionState;
+import com.mtn.agent.domain.Bid;
+import com.mtn.agent.domain.BidBatchResult;
+import com.mtn.agent.domain.BidPage;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.BidStatus;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundEvent;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.RunSummary;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.domain.SweepRange;
+import com.mtn.agent.domain.SweepRequest;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import tech.tablesaw.plotly.components.Axis;
+import tech.tablesaw.plotly.components.Figure;
+import tech.tablesaw.plotly.components.Layout;
+import tech.tablesaw.plotly.components.Line;
+import tech.tablesaw.plotly.components.Marker;
+import tech.tablesaw.plotly.traces.BarTrace;
+import tech.tablesaw.plotly.traces.ScatterTrace;
+
+/**
+ * Classes a native image has to keep reflective access to. Quarkus registers what resource
+ * methods declare they return, but not entities wrapped in a {@code Response}, types read or
+ * written through the {@code ObjectMapper} directly, or the Plotly components that
+ * {@link PlotService}'s templates read their properties from.
+ */
+@RegisterForReflection(
+        targets = {
+                AgentData.class,
+                AgentImportResult.class,
+                AgentPayoff.class,
+                AuctionDelta.class,
+                AuctionItem.class,
+                AuctionState.class,
+                Bid.class,
+                BidBatchResult.class,
+                BidPage.class,
+                BidRecord.class,
+                BidStatus.class,
+                EquilibriumRoundStat.class,
+                RoundEvent.class,
+                RoundStat.class,
+                RunSummary.class,
+                ScenarioData.class,
+                SweepRange.class,
+                SweepRequest.class,
+                EquilibriumAnalysisService.NashEquilibriumResult.class,
+                EquilibriumAnalysisService.ParetoEfficiencyResult.class,
+                MonteCarloService.MonteCarloResult.class,
+                MonteCarloService.Distribution.class,
+                PlotService.RoundSeries.class,
+                ScenarioTransferService.AgentRow.class,
+                SweepService.SweepStatus.class,
+                SweepService.SweepRow.class,
+                Figure.class,
+                Layout.class,
+                Axis.class,
+                Line.class,
+                Marker.class,
+                ScatterTrace.class,
+                BarTrace.class
+        },
+        classNames = {
+                "tech.tablesaw.plotly.components.Font",
+                "tech.tablesaw.plotly.components.Margin",
+                "tech.tablesaw.plotly.components.HoverLabel",
+                "tech.tablesaw.plotly.components.Config",
+                "tech.tablesaw.plotly.traces.AbstractTrace"
+        })
+final class ReflectionConfiguration {
+
+  private ReflectionConfiguration() {
+  }
+}
@@ -0,0 +1,280 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.RunSummary;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Append-only archive of completed simulation runs on local disk. Runs are written once, as one
+ * record each, into segment files of {@code segment-bytes} named after their first run id; see
+ * {@link ArchivedRun} for the record layout. Each segment is mapped once, as a whole, and runs are
+ * read back through slices of that mapping.
+ *
+ * <p>Retention works oldest first: runs past {@code max-runs} are dropped from the index, and whole
+ * segments are deleted once none of their runs is left or the segments hold more than
+ * {@code max-bytes}. The segment being appended to is always kept.
+ *
+ * <p>On startup each segment is scanned record header by record header. A record is only valid
+ * once its magic number is in place, and the magic number is written and synced only after the
+ * rest of the record has been synced, so a run torn by a crash is cut off and its space reused.
+ */
+@ApplicationScoped
+public class RunArchive {
+
+  private static final Logger LOG = Logger.getLogger(RunArchive.class);
+
+  private static final String SEGMENT_SUFFIX = ".runs";
+
+  @ConfigProperty(name = "auction.archive.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "auction.archive.dir", defaultValue = "data/runs")
+  String dir;
+
+  @ConfigProperty(name = "auction.archive.segment-bytes", defaultValue = "67108864")
+  long segmentBytes;
+
+  // 0 = unlimited
+  @ConfigProperty(name = "auction.archive.max-runs", defaultValue = "10000")
+  int maxRuns;
+
+  // 0 = unlimited
+  @ConfigProperty(name = "auction.archive.max-bytes", defaultValue = "1073741824")
+  long maxBytes;
+
+  private final ConcurrentNavigableMap<Long, ArchivedRun> runs = new ConcurrentSkipListMap<>();
+  // Oldest first; the last one is appended to. Guarded by this
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private Path directory;
+  private long nextRunId = 1;
+  private long bytes;
+
+  @PostConstruct
+  void open() {
+    if (!enabled) return;
+    try {
+      directory = Path.of(dir);
+      Files.createDirectories(directory);
+      load();
+      LOG.infov("Run archive {0}: {1} runs in {2} segments, {3} bytes",
+              directory.toAbsolutePath(), runs.size(), segments.size(), bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open run archive " + dir, e);
+    }
+  }
+
+  /**
+   * Writes a finished session to the archive and returns the archived run, or empty when archiving
+   * is disabled or the write failed. Failures are logged rather than thrown: losing the archived
+   * copy must not fail the run.
+   */
+  public synchronized Optional<ArchivedRun> archive(SimulationSession session) {
+    if (directory == null) return Optional.empty();
+
+    ArchivedRun.Writer writer = new ArchivedRun.Writer(session);
+    if (writer.length() > Integer.MAX_VALUE) {
+      LOG.errorv("Session {0} is too large to archive ({1} bytes)", session.getId(), writer.length());
+      return Optional.empty();
+    }
+    int length = (int) writer.length();
+
+    long runId = nextRunId;
+    try {
+      Segment segment = segments.peekLast();
+      if (segment == null || segment.window.capacity() - segment.end < length) {
+        segment = newSegment(runId, length);
+      }
+
+      // The record is filled in place and synced, and only then given its magic number, which is
+      // synced on its own
+      int at = segment.end;
+      writer.write(segment.window.duplicate().position(at), runId, System.currentTimeMillis());
+      segment.window.force(at, length);
+      ArchivedRun.Writer.commit(segment.window, at);
+      segment.window.force(at, ArchivedRun.HEADER_SIZE);
+
+      ArchivedRun run = new ArchivedRun(segment.window.slice(at, length).asReadOnlyBuffer());
+      segment.end += length;
+      segment.lastRunId = runId;
+      bytes += length;
+      nextRunId++;
+      runs.put(runId, run);
+      LOG.debugv("Archived session {0} as run {1}", session.getId(), runId);
+
+      enforceRetention();
+      return Optional.of(run);
+    } catch (IOException | UncheckedIOException e) {
+      LOG.errorv(e, "Failed to archive session {0}", session.getId());
+      return Optional.empty();
+    }
+  }
+
+  public Optional<ArchivedRun> getRun(long runId) {
+    return Optional.ofNullable(runs.get(runId));
+  }
+
+  public List<RunSummary> listRuns() {
+    return runs.values().stream().map(ArchivedRun::summary).toList();
+  }
+
+  // Mapping past the end of the new file grows it, sparsely, to the full segment size
+  private Segment newSegment(long firstRunId, int length) throws IOException {
+    int capacity = (int) Math.max(length, Math.min(segmentBytes, Integer.MAX_VALUE));
+    Path file = directory.resolve(String.format("%020d%s", firstRunId, SEGMENT_SUFFIX));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      Segment segment = new Segment(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+      segments.addLast(segment);
+      LOG.debugv("Started archive segment {0}", file.getFileName());
+      return segment;
+    }
+  }
+
+  private void enforceRetention() {
+    while (maxRuns > 0 && runs.size() > maxRuns) {
+      runs.pollFirstEntry();
+    }
+    while (segments.size() > 1) {
+      Segment oldest = segments.peekFirst();
+      boolean emptied = runs.isEmpty() || oldest.lastRunId < runs.firstKey();
+      if (!emptied && (maxBytes <= 0 || bytes <= maxBytes)) break;
+      drop(oldest);
+    }
+  }
+
+  // Runs already handed out keep their slices; the mapping outlives the file until they are gone
+  private void drop(Segment segment) {
+    segments.remove(segment);
+    bytes -= segment.end;
+    if (segment.firstRunId <= segment.lastRunId) {
+      runs.subMap(segment.firstRunId, true, segment.lastRunId, true).clear();
+    }
+    try {
+      Files.deleteIfExists(segment.file);
+      LOG.debugv("Deleted archive segment {0}", segment.file.getFileName());
+    } catch (IOException e) {
+      LOG.warnv(e, "Failed to delete archive segment {0}", segment.file);
+    }
+  }
+
+  private void load() throws IOException {
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(directory)) {
+      files = listing.filter(file -> Segment.firstRunId(file) >= 0)
+              .sorted(Comparator.comparingLong(Segment::firstRunId))
+              .toList();
+    }
+
+    for (int i = 0; i < files.size(); i++) {
+      boolean last = i == files.size() - 1;
+      Path file = files.get(i);
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        List<long[]> records = new ArrayList<>();
+        long end = scan(file, channel, records);
+        if (end == 0) {
+          channel.close();
+          Files.delete(file);
+          continue;
+        }
+
+        // The last segment is appended to again; the others are only read
+        MappedByteBuffer window = last
+                ? channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(end, Math.min(segmentBytes, Integer.MAX_VALUE)))
+                : channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+        Segment segment = new Segment(file, window);
+        segment.end = (int) end;
+        for (long[] record : records) {
+          ArchivedRun run = new ArchivedRun(window.slice((int) record[0], (int) record[1]).asReadOnlyBuffer());
+          runs.put(run.runId(), run);
+          segment.lastRunId = Math.max(segment.lastRunId, run.runId());
+          nextRunId = Math.max(nextRunId, run.runId() + 1);
+        }
+        segments.addLast(segment);
+        bytes += end;
+      }
+    }
+    enforceRetention();
+  }
+
+  /**
+   * Collects the offset and length of each valid record of a segment and cuts off whatever
+   * follows them. Returns the length of the valid part.
+   */
+  private long scan(Path file, FileChannel channel, List<long[]> records) throws IOException {
+    long size = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(ArchivedRun.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    long offset = 0;
+    long length = 0;
+    while (offset + ArchivedRun.HEADER_SIZE <= size) {
+      header.clear();
+      channel.read(header, offset);
+      length = header.getLong(ArchivedRun.H_LENGTH);
+      if (header.getInt(ArchivedRun.H_MAGIC) != ArchivedRun.MAGIC
+              || header.getInt(ArchivedRun.H_VERSION) != ArchivedRun.VERSION
+              || length < ArchivedRun.HEADER_SIZE || offset + length > Math.min(size, Integer.MAX_VALUE)) {
+        break;
+      }
+      records.add(new long[]{offset, length});
+      offset += length;
+      length = 0;
+    }
+
+    if (offset < size) {
+      // A segment is grown to its full size up front, so zeros past the last record are expected
+      if (length != 0) {
+        LOG.warnv("Run archive {0}: discarding an incomplete run at offset {1}", file.getFileName(), offset);
+      }
+      channel.truncate(offset);
+    }
+    return offset;
+  }
+
+  private static final class Segment {
+
+    final Path file;
+    final long firstRunId;
+    final MappedByteBuffer window;
+    int end;
+    long lastRunId;
+
+    Segment(Path file, MappedByteBuffer window) {
+      this.file = file;
+      this.firstRunId = firstRunId(file);
+      this.window = window;
+      this.lastRunId = firstRunId - 1;
+    }
+
+    // The run id a segment file is named after, or -1 for other files
+    static long firstRunId(Path file) {
+      String name = file.getFileName().toString();
+      if (!name.endsWith(SEGMENT_SUFFIX)) return -1;
+      try {
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+      } catch (NumberFormatException e) {
+        return -1;
+      }
+    }
+  }
+}
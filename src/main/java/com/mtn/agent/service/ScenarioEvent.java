@@ -0,0 +1,189 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.AgentList;
+import com.mtn.agent.domain.ScenarioData;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A change to the scenario catalogue, as logged by {@link ScenarioStore}. Replaying the events in
+ * order through {@link #applyTo} rebuilds the catalogue.
+ */
+sealed interface ScenarioEvent {
+
+  byte CREATED = 1;
+  byte UPDATED = 2;
+  byte DELETED = 3;
+  byte AGENT_ADDED = 4;
+  byte AGENT_REMOVED = 5;
+  byte AGENTS_ADDED = 6;
+
+  void applyTo(Map<Long, ScenarioData> scenarios);
+
+  void writeTo(DataOutput out) throws IOException;
+
+  static ScenarioEvent readFrom(DataInput in) throws IOException {
+    byte type = in.readByte();
+    return switch (type) {
+      case CREATED -> new Created(in.readLong(), readNullable(in), in.readInt(), in.readInt(), in.readDouble());
+      case UPDATED -> new Updated(in.readLong(), readNullable(in), in.readInt(), in.readInt(), in.readDouble());
+      case DELETED -> new Deleted(in.readLong());
+      case AGENT_ADDED -> new AgentAdded(in.readLong(), readAgent(in));
+      case AGENT_REMOVED -> new AgentRemoved(in.readLong(), in.readLong());
+      case AGENTS_ADDED -> {
+        long scenarioId = in.readLong();
+        AgentData[] agents = new AgentData[in.readInt()];
+        for (int i = 0; i < agents.length; i++) {
+          agents[i] = readAgent(in);
+        }
+        yield new AgentsAdded(scenarioId, Arrays.asList(agents));
+      }
+      default -> throw new IOException("Unknown scenario event type " + type);
+    };
+  }
+
+  record Created(Long id, String name, int numberOfSlots, int maxRounds, double epsilon) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.put(id, new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, AgentList.of()));
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(CREATED);
+      writeHeader(out, id, name, numberOfSlots, maxRounds, epsilon);
+    }
+  }
+
+  record Updated(Long id, String name, int numberOfSlots, int maxRounds, double epsilon) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.computeIfPresent(id, (key, existing) ->
+              new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, existing.agents()));
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(UPDATED);
+      writeHeader(out, id, name, numberOfSlots, maxRounds, epsilon);
+    }
+  }
+
+  record Deleted(Long id) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.remove(id);
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(DELETED);
+      out.writeLong(id);
+    }
+  }
+
+  record AgentAdded(Long scenarioId, AgentData agent) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.computeIfPresent(scenarioId, (key, scenario) -> scenario.withAgent(agent));
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(AGENT_ADDED);
+      out.writeLong(scenarioId);
+      writeAgent(out, agent);
+    }
+  }
+
+  /**
+   * Several agents added at once; logged as a single entry, so they are stored all or none.
+   */
+  record AgentsAdded(Long scenarioId, List<AgentData> agents) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.computeIfPresent(scenarioId, (key, scenario) -> {
+        ScenarioData updated = scenario;
+        for (AgentData agent : agents) {
+          updated = updated.withAgent(agent);
+        }
+        return updated;
+      });
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(AGENTS_ADDED);
+      out.writeLong(scenarioId);
+      out.writeInt(agents.size());
+      for (AgentData agent : agents) {
+        writeAgent(out, agent);
+      }
+    }
+  }
+
+  record AgentRemoved(Long scenarioId, Long agentId) implements ScenarioEvent {
+
+    @Override
+    public void applyTo(Map<Long, ScenarioData> scenarios) {
+      scenarios.computeIfPresent(scenarioId, (key, scenario) -> scenario.withoutAgent(agentId));
+    }
+
+    @Override
+    public void writeTo(DataOutput out) throws IOException {
+      out.writeByte(AGENT_REMOVED);
+      out.writeLong(scenarioId);
+      out.writeLong(agentId);
+    }
+  }
+
+  private static void writeHeader(DataOutput out, Long id, String name, int numberOfSlots, int maxRounds,
+                                  double epsilon) throws IOException {
+    out.writeLong(id);
+    writeNullable(out, name);
+    out.writeInt(numberOfSlots);
+    out.writeInt(maxRounds);
+    out.writeDouble(epsilon);
+  }
+
+  private static void writeAgent(DataOutput out, AgentData agent) throws IOException {
+    out.writeLong(agent.id());
+    writeNullable(out, agent.agentName());
+    writeNullable(out, agent.strategyType());
+    writeNullable(out, agent.valuationType());
+    out.writeInt(agent.targetSlot());
+    out.writeDouble(agent.budgetLimit());
+  }
+
+  private static AgentData readAgent(DataInput in) throws IOException {
+    return new AgentData(
+            in.readLong(),
+            readNullable(in),
+            readNullable(in),
+            readNullable(in),
+            in.readInt(),
+            in.readDouble());
+  }
+
+  private static void writeNullable(DataOutput out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(DataInput in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+}
@@ -4,6 +4,7 @@ import com.mtn.agent.domain.AgentData;
 import com.mtn.agent.domain.ScenarioData;
 import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
@@ -22,10 +23,18 @@ public class ScenarioService {
   private final AtomicLong scenarioIdGenerator = new AtomicLong(100); // Start after pre-loaded ones
   private final AtomicLong agentIdGenerator = new AtomicLong(1000);
 
+  @Inject
+  ScenarioStore store;
 
   @PostConstruct
   public void init() {
     loadPreLoadScenarios();
+    // Stored changes apply on top of the pre-loaded scenarios, or replace them once snapshotted
+    if (store.load(scenarios)) {
+      scenarioIdGenerator.accumulateAndGet(store.highestScenarioId() + 1, Math::max);
+      agentIdGenerator.accumulateAndGet(store.highestAgentId() + 1, Math::max);
+      LOG.infov("Restored {0} scenarios from the scenario store", scenarios.size());
+    }
   }
 
   private void loadPreLoadScenarios() {
@@ -92,33 +101,32 @@ public class ScenarioService {
     return createScenario(name, numberOfSlots, maxRounds, 1.0);  // Default epsilon
   }
 
-  public ScenarioData createScenario(String name, int numberOfSlots, int maxRounds, double epsilon) {
+  public synchronized ScenarioData createScenario(String name, int numberOfSlots, int maxRounds, double epsilon) {
     Long id = scenarioIdGenerator.getAndIncrement();
-    ScenarioData scenario = new ScenarioData(id, name, numberOfSlots, maxRounds,epsilon, new ArrayList<>());
-    scenarios.put(id, scenario);
+    commit(new ScenarioEvent.Created(id, name, numberOfSlots, maxRounds, epsilon));
     LOG.infov("Created scenario: {0} (ID: {1})", name, id);
-    return scenario;
+    return scenarios.get(id);
   }
 
-  public Optional<ScenarioData> updateScenario(Long id, String name, int numberOfSlots, int maxRounds, double epsilon) {
-    ScenarioData existing = scenarios.get(id);
-    if (existing == null) {
+  public synchronized Optional<ScenarioData> updateScenario(Long id, String name, int numberOfSlots, int maxRounds,
+                                                            double epsilon) {
+    if (!scenarios.containsKey(id)) {
       return Optional.empty();
     }
-    ScenarioData updated = new ScenarioData(id, name, numberOfSlots, maxRounds, epsilon, existing.agents());
-    scenarios.put(id, updated);
+    commit(new ScenarioEvent.Updated(id, name, numberOfSlots, maxRounds, epsilon));
     LOG.infov("Updated scenario: {0} (ID: {1}, Epsilon: {2})", name, id, epsilon);
-    return Optional.of(updated);
+    return Optional.of(scenarios.get(id));
   }
 
-  public boolean deleteScenario(Long id) {
+  public synchronized boolean deleteScenario(Long id) {
     // Prevent deletion of pre-loaded scenarios
     if (id <= 3) {
       LOG.warnv("Cannot delete pre-loaded scenario with ID: {0}", id);
       return false;
     }
-    ScenarioData removed = scenarios.remove(id);
+    ScenarioData removed = scenarios.get(id);
     if (removed != null) {
+      commit(new ScenarioEvent.Deleted(id));
       LOG.infov("Deleted scenario: {0} (ID: {1})", removed.name(), id);
       return true;
     }
@@ -126,8 +134,8 @@ public class ScenarioService {
   }
 
   // Agent operations
-  public Optional<AgentData> addAgent(Long scenarioId, String agentName, String strategyType,
-                                      String valuationType, int targetSlot, double budgetLimit) {
+  public synchronized Optional<AgentData> addAgent(Long scenarioId, String agentName, String strategyType,
+                                                   String valuationType, int targetSlot, double budgetLimit) {
     ScenarioData scenario = scenarios.get(scenarioId);
     if (scenario == null) {
       return Optional.empty();
@@ -135,24 +143,49 @@ public class ScenarioService {
 
     Long agentId = agentIdGenerator.getAndIncrement();
     AgentData agent = new AgentData(agentId, agentName, strategyType, valuationType, targetSlot, budgetLimit);
-    ScenarioData updated = scenario.withAgent(agent);
-    scenarios.put(scenarioId, updated);
+    commit(new ScenarioEvent.AgentAdded(scenarioId, agent));
     LOG.infov("Added agent {0} to scenario {1}", agentName, scenario.name());
     return Optional.of(agent);
   }
 
-  public boolean deleteAgent(Long scenarioId, Long agentId) {
+  /**
+   * Adds a batch of agents as one change: they are assigned ids in order and stored together, so
+   * either all of them are added or none. The ids of the given agents are ignored.
+   */
+  public synchronized Optional<List<AgentData>> addAgents(Long scenarioId, List<AgentData> agents) {
+    ScenarioData scenario = scenarios.get(scenarioId);
+    if (scenario == null) {
+      return Optional.empty();
+    }
+
+    List<AgentData> added = new ArrayList<>(agents.size());
+    for (AgentData agent : agents) {
+      added.add(new AgentData(agentIdGenerator.getAndIncrement(), agent.agentName(), agent.strategyType(),
+              agent.valuationType(), agent.targetSlot(), agent.budgetLimit()));
+    }
+    commit(new ScenarioEvent.AgentsAdded(scenarioId, added));
+    LOG.infov("Added {0} agents to scenario {1}", added.size(), scenario.name());
+    return Optional.of(added);
+  }
+
+  public synchronized boolean deleteAgent(Long scenarioId, Long agentId) {
     ScenarioData scenario = scenarios.get(scenarioId);
     if (scenario == null) {
       return false;
     }
 
-    ScenarioData updated = scenario.withoutAgent(agentId);
-    scenarios.put(scenarioId, updated);
+    commit(new ScenarioEvent.AgentRemoved(scenarioId, agentId));
     LOG.infov("Deleted agent {0} from scenario {1}", agentId, scenario.name());
     return true;
   }
 
+  // Log first, then apply: a change that could not be stored is not made
+  private void commit(ScenarioEvent event) {
+    store.append(event);
+    event.applyTo(scenarios);
+    store.compactIfDue(scenarios.values());
+  }
+
   public List<AgentData> getAgents(Long scenarioId) {
     ScenarioData scenario = scenarios.get(scenarioId);
     if (scenario == null) {
@@ -0,0 +1,297 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.ScenarioData;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Keeps the scenario catalogue on disk as a compacted snapshot plus a write-ahead log of the
+ * {@link ScenarioEvent}s since. Every change is appended to the log before it is applied; once
+ * {@code snapshot-every} events have piled up, the whole catalogue is rewritten as a new snapshot
+ * and the log starts over.
+ *
+ * <p>Entries are framed as length, CRC-32C and sequence number, then the event. Loading stops at
+ * the first entry that is cut short or fails its checksum, and the log is truncated there. Log
+ * entries the snapshot already covers, left behind by a crash during compaction, are skipped by
+ * sequence number.
+ */
+@ApplicationScoped
+public class ScenarioStore {
+
+  private static final Logger LOG = Logger.getLogger(ScenarioStore.class);
+
+  private static final int SNAPSHOT_MAGIC = 0x53434e53;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final int FRAME_HEADER = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+  @ConfigProperty(name = "auction.scenarios.store.enabled", defaultValue = "true")
+  boolean enabled;
+
+  @ConfigProperty(name = "auction.scenarios.store.dir", defaultValue = "data/scenarios")
+  String dir;
+
+  @ConfigProperty(name = "auction.scenarios.store.snapshot-every", defaultValue = "10000")
+  int snapshotEvery;
+
+  @ConfigProperty(name = "auction.scenarios.store.fsync", defaultValue = "false")
+  boolean fsync;
+
+  private FileChannel log;
+  private long sequence;
+  private int sinceSnapshot;
+  private long highestScenarioId;
+  private long highestAgentId;
+
+  private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+  private final DataOutputStream scratchOut = new DataOutputStream(scratch);
+  private final CRC32C crc = new CRC32C();
+
+  /**
+   * Replays the snapshot, if any, and then the log into {@code scenarios}, and opens the log for
+   * appending. A snapshot replaces whatever {@code scenarios} held; without one the log is
+   * replayed on top of it. Returns whether anything was stored.
+   */
+  public synchronized boolean load(Map<Long, ScenarioData> scenarios) {
+    if (!enabled) return false;
+    try {
+      Path directory = Path.of(dir);
+      Files.createDirectories(directory);
+
+      boolean stored = false;
+      long covered = 0;
+      Path snapshot = snapshotFile();
+      if (Files.exists(snapshot)) {
+        scenarios.clear();
+        covered = readSnapshot(snapshot, scenarios);
+        stored = true;
+      }
+      sequence = covered;
+
+      log = FileChannel.open(logFile(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      long end = replayLog(covered, scenarios);
+      if (end < log.size()) {
+        LOG.warnv("Scenario log: discarding {0} bytes of incomplete data", log.size() - end);
+        log.truncate(end);
+      }
+      log.position(end);
+      stored |= end > 0;
+
+      LOG.infov("Scenario store {0}: {1} scenarios, {2} logged changes since the snapshot",
+              directory.toAbsolutePath(), scenarios.size(), sinceSnapshot);
+      return stored;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot load scenario store from " + dir, e);
+    }
+  }
+
+  @PreDestroy
+  synchronized void close() throws IOException {
+    if (log != null) {
+      log.close();
+      log = null;
+    }
+  }
+
+  /**
+   * Appends an event to the log. Callers apply it only once this has returned.
+   */
+  public synchronized void append(ScenarioEvent event) {
+    if (log == null) return;
+    try {
+      ByteBuffer frame = frame(++sequence, event);
+      while (frame.hasRemaining()) {
+        log.write(frame);
+      }
+      if (fsync) {
+        log.force(false);
+      }
+      sinceSnapshot++;
+      track(event);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write to the scenario log", e);
+    }
+  }
+
+  /**
+   * Rewrites the snapshot from the current catalogue if enough events were logged since the last.
+   */
+  public synchronized void compactIfDue(Collection<ScenarioData> scenarios) {
+    if (log == null || sinceSnapshot < snapshotEvery) return;
+    try {
+      writeSnapshot(scenarios);
+      log.truncate(0);
+      log.position(0);
+      if (fsync) {
+        log.force(false);
+      }
+      sinceSnapshot = 0;
+    } catch (IOException e) {
+      // The log still holds everything; compaction is retried after the next change
+      LOG.errorv(e, "Scenario snapshot failed");
+    }
+  }
+
+  long highestScenarioId() {
+    return highestScenarioId;
+  }
+
+  long highestAgentId() {
+    return highestAgentId;
+  }
+
+  private long readSnapshot(Path snapshot, Map<Long, ScenarioData> scenarios) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot), 64 * 1024))) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+        throw new IOException("Not a scenario snapshot: " + snapshot);
+      }
+      long covered = in.readLong();
+      highestScenarioId = in.readLong();
+      highestAgentId = in.readLong();
+      // Written in one piece and renamed into place, so a short or corrupt snapshot is an error
+      if (readFrames(in, Long.MAX_VALUE, -1, scenarios) < 0) {
+        throw new IOException("Corrupt scenario snapshot: " + snapshot);
+      }
+      return covered;
+    }
+  }
+
+  private long replayLog(long covered, Map<Long, ScenarioData> scenarios) throws IOException {
+    long end = readFrames(Channels.newInputStream(log.position(0)), log.size(), covered, scenarios);
+    // Log entries are numbered consecutively from the snapshot on
+    sinceSnapshot = (int) (sequence - covered);
+    return end < 0 ? ~end : end;
+  }
+
+  /**
+   * Applies the frames of {@code input} with a sequence number above {@code covered}. Returns the
+   * offset after the last good frame, or its complement ({@code ~offset}, always negative) if
+   * reading stopped at a bad one.
+   */
+  private long readFrames(InputStream input, long size, long covered, Map<Long, ScenarioData> scenarios)
+          throws IOException {
+    DataInputStream in = input instanceof DataInputStream data
+            ? data
+            : new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+    long offset = 0;
+    byte[] payload = new byte[256];
+    while (true) {
+      int length;
+      try {
+        length = in.readInt();
+      } catch (EOFException e) {
+        return offset;
+      }
+      try {
+        int checksum = in.readInt();
+        long entrySequence = in.readLong();
+        if (length < 0 || offset + FRAME_HEADER + length > size) return ~offset;
+        if (payload.length < length) payload = new byte[Math.max(length, payload.length * 2)];
+        in.readFully(payload, 0, length);
+
+        crc.reset();
+        crc.update(payload, 0, length);
+        if ((int) crc.getValue() != checksum) return ~offset;
+
+        if (entrySequence > covered) {
+          ScenarioEvent event = ScenarioEvent.readFrom(new DataInputStream(
+                  new ByteArrayInputStream(payload, 0, length)));
+          event.applyTo(scenarios);
+          track(event);
+          sequence = Math.max(sequence, entrySequence);
+        }
+        offset += FRAME_HEADER + length;
+      } catch (EOFException e) {
+        return ~offset;
+      }
+    }
+  }
+
+  private void writeSnapshot(Collection<ScenarioData> scenarios) throws IOException {
+    Path target = snapshotFile();
+    Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES + 3 * Long.BYTES)
+              .putInt(SNAPSHOT_MAGIC)
+              .putInt(SNAPSHOT_VERSION)
+              .putLong(sequence)
+              .putLong(highestScenarioId)
+              .putLong(highestAgentId)
+              .flip();
+      writeFully(out, header);
+      for (ScenarioData scenario : scenarios) {
+        writeFully(out, frame(0, new ScenarioEvent.Created(scenario.id(), scenario.name(),
+                scenario.numberOfSlots(), scenario.maxRounds(), scenario.epsilon())));
+        if (!scenario.agents().isEmpty()) {
+          writeFully(out, frame(0, new ScenarioEvent.AgentsAdded(scenario.id(), scenario.agents())));
+        }
+      }
+      out.force(true);
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    LOG.infov("Wrote scenario snapshot: {0} scenarios up to change {1}", scenarios.size(), sequence);
+  }
+
+  private ByteBuffer frame(long entrySequence, ScenarioEvent event) throws IOException {
+    scratch.reset();
+    event.writeTo(scratchOut);
+    byte[] payload = scratch.toByteArray();
+    crc.reset();
+    crc.update(payload);
+    return ByteBuffer.allocate(FRAME_HEADER + payload.length)
+            .putInt(payload.length)
+            .putInt((int) crc.getValue())
+            .putLong(entrySequence)
+            .put(payload)
+            .flip();
+  }
+
+  private void track(ScenarioEvent event) {
+    if (event instanceof ScenarioEvent.Created created) {
+      highestScenarioId = Math.max(highestScenarioId, created.id());
+    } else if (event instanceof ScenarioEvent.AgentAdded added) {
+      highestAgentId = Math.max(highestAgentId, added.agent().id());
+    } else if (event instanceof ScenarioEvent.AgentsAdded added) {
+      for (AgentData agent : added.agents()) {
+        highestAgentId = Math.max(highestAgentId, agent.id());
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private Path snapshotFile() {
+    return Path.of(dir, "scenarios.snapshot");
+  }
+
+  private Path logFile() {
+    return Path.of(dir, "scenarios.wal");
+  }
+}
@@ -0,0 +1,308 @@
+package com.mtn.agent.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.AgentImportResult;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Bulk import and export of a scenario's agents as CSV or newline-delimited JSON. Imports are
+ * parsed and validated row by row as the body is read, then committed as a single change.
+ *
+ * <p>CSV has one record per line and a header naming the columns, in any order: {@code agentName}
+ * and {@code valuationType} are required, {@code strategyType}, {@code targetSlot} and
+ * {@code budgetLimit} optional. An {@code id} column is accepted and ignored, as are ids in NDJSON,
+ * so that an export can be imported again.
+ */
+@ApplicationScoped
+public class ScenarioTransferService {
+
+  static final List<String> COLUMNS = List.of("id", "agentName", "strategyType", "valuationType", "targetSlot", "budgetLimit");
+
+  private static final int MAX_REPORTED_ERRORS = 100;
+
+  @Inject
+  ScenarioService scenarioService;
+
+  @Inject
+  ObjectMapper objectMapper;
+
+  @Inject
+  StrategyRegistry strategyRegistry;
+
+  @ConfigProperty(name = "auction.scenarios.import.max-agents", defaultValue = "1000000")
+  int maxAgents;
+
+  /**
+   * Imports the agents of a CSV body. Empty if the scenario does not exist.
+   */
+  public Optional<AgentImportResult> importCsv(Long scenarioId, Reader body) {
+    if (scenarioService.getScenario(scenarioId).isEmpty()) return Optional.empty();
+
+    Batch batch = new Batch();
+    try (BufferedReader reader = new BufferedReader(body, 64 * 1024)) {
+      String header = reader.readLine();
+      int[] columns = header == null ? null : columnIndices(splitCsv(header), batch);
+      if (columns == null) {
+        if (header == null) batch.error(1, "missing header");
+        return commit(scenarioId, batch);
+      }
+
+      String line;
+      int lineNumber = 1;
+      while ((line = reader.readLine()) != null && !batch.isFull()) {
+        lineNumber++;
+        if (line.isBlank()) continue;
+
+        List<String> fields = splitCsv(line);
+        if (fields == null) {
+          batch.error(lineNumber, "unterminated quote");
+          continue;
+        }
+        batch.add(lineNumber,
+                field(fields, columns[1]),
+                field(fields, columns[2]),
+                field(fields, columns[3]),
+                field(fields, columns[4]),
+                field(fields, columns[5]));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return commit(scenarioId, batch);
+  }
+
+  /**
+   * Imports the agents of an NDJSON body, one {@link AgentData}-shaped object per line. Empty if
+   * the scenario does not exist.
+   */
+  public Optional<AgentImportResult> importNdjson(Long scenarioId, Reader body) {
+    if (scenarioService.getScenario(scenarioId).isEmpty()) return Optional.empty();
+
+    Batch batch = new Batch();
+    try (BufferedReader reader = new BufferedReader(body, 64 * 1024)) {
+      String line;
+      int lineNumber = 0;
+      while ((line = reader.readLine()) != null && !batch.isFull()) {
+        lineNumber++;
+        if (line.isBlank()) continue;
+
+        try {
+          AgentRow row = objectMapper.readValue(line, AgentRow.class);
+          if (row == null) {
+            batch.error(lineNumber, "malformed agent");
+            continue;
+          }
+          batch.add(lineNumber, row.agentName, row.strategyType, row.valuationType, row.targetSlot, row.budgetLimit);
+        } catch (JsonProcessingException e) {
+          batch.error(lineNumber, "malformed agent");
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return commit(scenarioId, batch);
+  }
+
+  public void exportCsv(List<AgentData> agents, OutputStream output) throws IOException {
+    Writer out = new OutputStreamWriter(new BufferedOutputStream(output, 64 * 1024), StandardCharsets.UTF_8);
+    out.write(String.join(",", COLUMNS));
+    out.write('\n');
+    for (AgentData agent : agents) {
+      out.write(String.valueOf(agent.id()));
+      out.write(',');
+      writeCsv(out, agent.agentName());
+      out.write(',');
+      writeCsv(out, agent.strategyType());
+      out.write(',');
+      writeCsv(out, agent.valuationType());
+      out.write(',');
+      out.write(Integer.toString(agent.targetSlot()));
+      out.write(',');
+      out.write(Double.toString(agent.budgetLimit()));
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  public void exportNdjson(List<AgentData> agents, OutputStream output) throws IOException {
+    OutputStream out = new BufferedOutputStream(output, 64 * 1024);
+    for (AgentData agent : agents) {
+      out.write(objectMapper.writeValueAsBytes(agent));
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  private Optional<AgentImportResult> commit(Long scenarioId, Batch batch) {
+    if (!batch.errors.isEmpty()) {
+      return Optional.of(new AgentImportResult(0, batch.reportedErrors()));
+    }
+    return scenarioService.addAgents(scenarioId, batch.agents)
+            .map(added -> new AgentImportResult(added.size(), List.of()));
+  }
+
+  // Position of each known column in the header, in COLUMNS order, -1 where absent; null if unusable
+  private static int[] columnIndices(List<String> header, Batch batch) {
+    if (header == null) {
+      batch.error(1, "unterminated quote");
+      return null;
+    }
+    int[] indices = new int[COLUMNS.size()];
+    Arrays.fill(indices, -1);
+    for (int i = 0; i < header.size(); i++) {
+      int column = COLUMNS.indexOf(header.get(i).trim());
+      if (column < 0) {
+        batch.error(1, "unknown column " + header.get(i).trim());
+      } else {
+        indices[column] = i;
+      }
+    }
+    if (indices[1] < 0) batch.error(1, "missing column agentName");
+    if (indices[3] < 0) batch.error(1, "missing column valuationType");
+    return batch.errors.isEmpty() ? indices : null;
+  }
+
+  private static String field(List<String> fields, int index) {
+    if (index < 0 || index >= fields.size()) return null;
+    String value = fields.get(index).trim();
+    return value.isEmpty() ? null : value;
+  }
+
+  /**
+   * Splits one CSV record. Fields may be quoted, with {@code ""} for a quote inside; returns null
+   * if a quote is left open.
+   */
+  static List<String> splitCsv(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) return null;
+    fields.add(field.toString());
+    return fields;
+  }
+
+  private static void writeCsv(Writer out, String value) throws IOException {
+    if (value == null) return;
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      out.write(value);
+      return;
+    }
+    out.write('"');
+    out.write(value.replace("\"", "\"\""));
+    out.write('"');
+  }
+
+  /**
+   * An agent as read from NDJSON; the id, if any, is not used.
+   */
+  public static class AgentRow {
+    public Long id;
+    public String agentName;
+    public String strategyType;
+    public String valuationType;
+    public Integer targetSlot;
+    public Double budgetLimit;
+  }
+
+  // Validated rows, without ids yet, and the problems found so far
+  private final class Batch {
+
+    private final List<AgentData> agents = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private int errorCount = 0;
+
+    void add(int line, String agentName, String strategyType, String valuationType, String targetSlot,
+             String budgetLimit) {
+      Integer slot = null;
+      Double budget = null;
+      try {
+        if (targetSlot != null) slot = Integer.parseInt(targetSlot);
+      } catch (NumberFormatException e) {
+        error(line, "invalid targetSlot " + targetSlot);
+        return;
+      }
+      try {
+        if (budgetLimit != null) budget = Double.parseDouble(budgetLimit);
+      } catch (NumberFormatException e) {
+        error(line, "invalid budgetLimit " + budgetLimit);
+        return;
+      }
+      add(line, agentName, strategyType, valuationType, slot, budget);
+    }
+
+    void add(int line, String agentName, String strategyType, String valuationType, Integer targetSlot,
+             Double budgetLimit) {
+      if (agentName == null || agentName.isBlank()) {
+        error(line, "agentName is required");
+      } else if (!strategyRegistry.isKnown(strategyType)) {
+        error(line, "unknown strategyType " + strategyType);
+      } else if (!ValuationGenerator.isKnownType(valuationType)) {
+        error(line, "unknown valuationType " + valuationType);
+      } else if (budgetLimit != null && !Double.isFinite(budgetLimit)) {
+        error(line, "invalid budgetLimit " + budgetLimit);
+      } else if (agents.size() == maxAgents) {
+        error(line, "more than " + maxAgents + " agents");
+      } else {
+        agents.add(new AgentData(null, agentName, strategyType, valuationType,
+                targetSlot != null ? targetSlot : -1,
+                budgetLimit != null ? budgetLimit : -1.0));
+      }
+    }
+
+    void error(int line, String message) {
+      if (errorCount++ < MAX_REPORTED_ERRORS) {
+        errors.add("line " + line + ": " + message);
+      }
+    }
+
+    // Past the agent limit there is no point reading on
+    boolean isFull() {
+      return agents.size() == maxAgents && errorCount > 0;
+    }
+
+    List<String> reportedErrors() {
+      if (errorCount <= MAX_REPORTED_ERRORS) return errors;
+      List<String> reported = new ArrayList<>(errors);
+      reported.add("... and " + (errorCount - MAX_REPORTED_ERRORS) + " more");
+      return reported;
+    }
+  }
+}
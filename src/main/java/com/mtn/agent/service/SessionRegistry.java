@@ -0,0 +1,160 @@
+package com.mtn.agent.service;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@ApplicationScoped
+public class SessionRegistry {
+
+  private static final Logger LOG = Logger.getLogger(SessionRegistry.class);
+
+  @Inject
+  Instance<AuctioneerService> auctioneerFactory;
+
+  @Inject
+  Instance<AgentService> agentFactory;
+
+  @ConfigProperty(name = "auction.sessions.max-retained", defaultValue = "50")
+  int maxRetained;
+
+  @ConfigProperty(name = "auction.sessions.manual-idle-timeout", defaultValue = "30m")
+  Duration manualIdleTimeout;
+
+  private final ConcurrentNavigableMap<Long, SimulationSession> sessions = new ConcurrentSkipListMap<>();
+  private final AtomicLong sessionIdGenerator = new AtomicLong(1);
+
+  /**
+   * A new session with its own auctioneer. Lookups do not see it until it is {@linkplain #register
+   * registered}, so a session that fails to set up is {@linkplain #discard discarded} instead of
+   * being left behind as running.
+   */
+  public SimulationSession create(Long scenarioId, int maxRounds) {
+    Long id = sessionIdGenerator.getAndIncrement();
+    return new SimulationSession(id, scenarioId, maxRounds, auctioneerFactory.get());
+  }
+
+  public void register(SimulationSession session) {
+    sessions.put(session.getId(), session);
+    evictFinished();
+    LOG.debugv("Registered session {0} for scenario {1}", session.getId(), session.getScenarioId());
+  }
+
+  /**
+   * Registers a session driven by hand through the auction API. It is finished once it has been
+   * left alone for {@code manual-idle-timeout}, so that abandoned ones can be evicted.
+   */
+  public void registerManual(SimulationSession session) {
+    session.setManual();
+    register(session);
+  }
+
+  /**
+   * Releases a session that was created but will not be registered.
+   */
+  public void discard(SimulationSession session) {
+    session.markFinished();
+    destroy(session);
+  }
+
+  /**
+   * Finishes and drops a session at once. Returns whether it was held.
+   */
+  public boolean remove(Long id) {
+    SimulationSession session = sessions.remove(id);
+    if (session == null) return false;
+    session.markFinished();
+    destroy(session);
+    LOG.debugv("Removed session {0}", id);
+    return true;
+  }
+
+  /**
+   * Looking a session up counts as using it, for the idle timeout of manual sessions.
+   */
+  public Optional<SimulationSession> getSession(Long id) {
+    return Optional.ofNullable(sessions.get(id)).map(SessionRegistry::touched);
+  }
+
+  public Optional<SimulationSession> latest() {
+    Map.Entry<Long, SimulationSession> last = sessions.lastEntry();
+    return last == null ? Optional.empty() : Optional.of(touched(last.getValue()));
+  }
+
+  /**
+   * Looks up the given session, falling back to the most recent one when no id is supplied.
+   */
+  public Optional<SimulationSession> resolve(Long id) {
+    return id == null ? latest() : getSession(id);
+  }
+
+  /**
+   * Like {@link #resolve}, but without an id falls back to the most recent session driven by hand,
+   * never to a running simulation.
+   */
+  public Optional<SimulationSession> resolveManual(Long id) {
+    if (id != null) return getSession(id);
+    for (SimulationSession session : sessions.descendingMap().values()) {
+      if (session.isManual()) return Optional.of(touched(session));
+    }
+    return Optional.empty();
+  }
+
+  public List<SimulationSession> getAllSessions() {
+    return new ArrayList<>(sessions.values());
+  }
+
+  public long activeCount() {
+    return sessions.values().stream().filter(SimulationSession::isRunning).count();
+  }
+
+  public AgentService newAgent() {
+    return agentFactory.get();
+  }
+
+  private static SimulationSession touched(SimulationSession session) {
+    session.touch();
+    return session;
+  }
+
+  // Finish manual sessions left idle, then drop the oldest finished sessions once more than
+  // maxRetained are held. Sessions start out running, so a freshly registered one is never evicted
+  // before it is driven.
+  private void evictFinished() {
+    long idleSince = System.nanoTime() - manualIdleTimeout.toNanos();
+    for (SimulationSession session : sessions.values()) {
+      if (session.isManual() && session.isRunning() && session.lastUsed() - idleSince < 0) {
+        session.markFinished();
+        LOG.debugv("Finished idle session {0}", session.getId());
+      }
+    }
+
+    int excess = sessions.size() - maxRetained;
+    for (SimulationSession session : sessions.values()) {
+      if (excess <= 0) break;
+      if (session.isRunning()) continue;
+
+      if (sessions.remove(session.getId(), session)) {
+        destroy(session);
+        excess--;
+        LOG.debugv("Evicted session {0}", session.getId());
+      }
+    }
+  }
+
+  private void destroy(SimulationSession session) {
+    auctioneerFactory.destroy(session.getAuctioneer());
+    session.getAgents().forEach(agentFactory::destroy);
+  }
+}
@@ -0,0 +1,21 @@
+package com.mtn.agent.service;
+
+import java.util.Optional;
+
+/**
+ * How a simulation session is driven. BATCH runs rounds back to back without console output,
+ * LIVE paces rounds and logs each resolution so the ui.html demo can follow along.
+ */
+public enum SimulationMode {
+  BATCH,
+  LIVE;
+
+  public static Optional<SimulationMode> parse(String value) {
+    if (value == null || value.isBlank()) return Optional.of(BATCH);
+
+    for (SimulationMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(value)) return Optional.of(mode);
+    }
+    return Optional.empty();
+  }
+}
@@ -1,14 +1,22 @@
 package com.mtn.agent.service;
 
 import com.mtn.agent.domain.*;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.enterprise.inject.Instance;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.HashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 @ApplicationScoped
 public class SimulationRunner {
@@ -16,10 +24,7 @@ public class SimulationRunner {
   private static final Logger LOG = Logger.getLogger(SimulationRunner.class);
 
   @Inject
-  AuctioneerService auctioneer;
-
-  @Inject
-  Instance<AgentService> agentFactory;
+  SessionRegistry sessionRegistry;
 
   @Inject
   ValuationGenerator valGenerator;
@@ -30,133 +35,353 @@ public class SimulationRunner {
   @Inject
   EquilibriumAnalysisService equilibriumAnalysisService;
 
-  private final List<RoundStat> statsHistory = Collections.synchronizedList(new ArrayList<>());
-  private final List<BidRecord> bidHistory = Collections.synchronizedList(new ArrayList<>());
-  private final Map<String, Map<String, Double>> agentValuations = new ConcurrentHashMap<>();
-  private final List<EquilibriumRoundStat> equilibriumHistory = Collections.synchronizedList(new ArrayList<>());
+  @Inject
+  StrategyRegistry strategyRegistry;
 
-  private List<AgentService> currentAgents = List.of();
+  @Inject
+  AuctionMetrics metrics;
 
-  public List<RoundStat> getStatsHistory() {
-    return new ArrayList<>(statsHistory);
-  }
+  @Inject
+  RunArchive runArchive;
 
-  public List<BidRecord> getBidHistory() {
-    return new ArrayList<>(bidHistory);
-  }
+  @ConfigProperty(name = "auction.simulation.live-round-delay-ms", defaultValue = "50")
+  long liveRoundDelayMs;
 
-  public List<AuctionItem> getFinalItems() {
-    return auctioneer.getState().items();
-  }
+  @ConfigProperty(name = "auction.simulation.parallel-decide.enabled", defaultValue = "true")
+  boolean parallelDecideEnabled;
 
-  public List<AgentService> getCurrentAgents() {
-    return currentAgents;
-  }
+  @ConfigProperty(name = "auction.simulation.parallel-decide.min-agents", defaultValue = "256")
+  int parallelDecideMinAgents;
 
-  public Map<String, Map<String, Double>> getAgentValuations() {
-    return new HashMap<>(agentValuations);
-  }
+  @ConfigProperty(name = "auction.simulation.event-driven.enabled", defaultValue = "true")
+  boolean eventDrivenEnabled;
+
+  @ConfigProperty(name = "auction.simulation.early-termination.enabled", defaultValue = "true")
+  boolean earlyTerminationEnabled;
+
+  // 0 = two per available core
+  @ConfigProperty(name = "auction.simulation.run-threads", defaultValue = "0")
+  int runThreads;
+
+  @ConfigProperty(name = "auction.simulation.max-queued-runs", defaultValue = "100")
+  int maxQueuedRuns;
 
-  public List<EquilibriumRoundStat> getEquilibriumHistory() {
-    return new ArrayList<>(equilibriumHistory);
+  private volatile ThreadPoolExecutor executor;
+
+  public Optional<SimulationSession> runInMemoryScenario(Long scenarioId) {
+    Optional<SimulationSession> session = prepareScenario(scenarioId);
+    session.ifPresent(s -> run(s, SimulationMode.BATCH));
+    return session;
   }
 
-  public void runInMemoryScenario(Long scenarioId) {
+  /**
+   * Creates a new session for the scenario and loads its agents, without running any rounds. The
+   * session is only registered once it is ready to run.
+   *
+   * @throws IllegalArgumentException if an agent names a strategy that is not available
+   */
+  public Optional<SimulationSession> prepareScenario(Long scenarioId) {
     Optional<ScenarioData> scenarioOpt = scenarioService.getScenario(scenarioId);
 
     if (scenarioOpt.isEmpty()) {
       LOG.error("Scenario not found with ID: " + scenarioId);
-      return;
+      return Optional.empty();
     }
 
     ScenarioData scenario = scenarioOpt.get();
-    LOG.infov("=== LOADING IN-MEMORY SCENARIO: {0} ===", scenario.name());
+    checkStrategies(scenario);
+    SimulationSession session = sessionRegistry.create(scenario.id(), scenario.maxRounds());
+    LOG.infov("=== LOADING IN-MEMORY SCENARIO: {0} (session {1}) ===", scenario.name(), session.getId());
+
+    try {
+      session.getAuctioneer().init(scenario.numberOfSlots(), scenario.epsilon());
+      loadAgents(session, scenario, sessionRegistry::newAgent, new SplittableRandom(), false);
+    } catch (RuntimeException e) {
+      sessionRegistry.discard(session);
+      throw e;
+    }
+    sessionRegistry.register(session);
+    return Optional.of(session);
+  }
 
+  /**
+   * Builds an unregistered, quiet session for one replication of a scenario. Valuations are drawn
+   * from the given generator and agent ids are derived from the scenario, so a replication is
+   * fully determined by its seed.
+   */
+  public SimulationSession prepareReplication(ScenarioData scenario, RandomGenerator rng) {
+    AuctioneerService auctioneer = new AuctioneerService();
+    auctioneer.setRoundLogging(false);
     auctioneer.init(scenario.numberOfSlots(), scenario.epsilon());
-    agentValuations.clear();
+
+    SimulationSession session = new SimulationSession(null, scenario.id(), scenario.maxRounds(), auctioneer);
+    loadAgents(session, scenario, AgentService::new, rng, true);
+    return session;
+  }
+
+  /**
+   * Fails if an agent of the scenario names a strategy that is not available, say one from a
+   * plugin that has since been removed. Scenarios are checked when agents are added, but the
+   * set of strategies may have changed since.
+   *
+   * @throws IllegalArgumentException naming the first unknown strategy
+   */
+  public void checkStrategies(ScenarioData scenario) {
+    for (AgentData config : scenario.agents()) {
+      strategyRegistry.require(config.strategyType());
+    }
+  }
+
+  private void loadAgents(SimulationSession session, ScenarioData scenario, Supplier<AgentService> agentFactory,
+                          RandomGenerator rng, boolean replication) {
     List<AgentService> agents = new ArrayList<>();
 
     for (AgentData config : scenario.agents()) {
       AgentService agent = agentFactory.get();
 
-      Map<String, Double> vals = valGenerator.generate(
+      SlotValuations vals = valGenerator.generate(
               config.valuationType(),
               scenario.numberOfSlots(),
-              config.targetSlot()
+              config.targetSlot(),
+              rng
       );
       double budget = (config.budgetLimit() == 0) ? -1.0 : config.budgetLimit();
-      agent.init(config.agentName(), vals, config.strategyType(), budget);
-      agentValuations.put(agent.getAgentId(), vals);
+      // Replications skip the random UUID suffix: it is not reproducible and contends on SecureRandom
+      String idPrefix = replication && !config.agentName().contains("_")
+              ? config.agentName() + "_" + config.id()
+              : config.agentName();
+      agent.init(idPrefix, agents.size(), vals, strategyRegistry.require(config.strategyType()), budget);
+      session.valuations().put(agent.getAgentId(), vals.toMap());
       agents.add(agent);
 
-      LOG.infov("Loaded Agent: {0} [Strategy: {1} Valuation: {2} Budget: {3}",
-              config.agentName(), config.strategyType(), config.valuationType(), budget);
+      if (!replication) {
+        LOG.infov("Loaded Agent: {0} [Strategy: {1} Valuation: {2} Budget: {3}",
+                config.agentName(), config.strategyType(), config.valuationType(), budget);
+      }
     }
 
-    currentAgents = agents;
+    session.getAuctioneer().registerAgents(agents);
+    session.setAgents(agents);
+  }
 
-    runLoop(agents, scenario.maxRounds());
+  /**
+   * Runs a prepared session in the background on the runner's own threads, not a shared pool: a
+   * LIVE run sleeps between rounds, and parallel decide phases need the common pool to be free.
+   *
+   * @throws IllegalStateException if every run thread is busy and the queue is full; the session
+   *                               is dropped
+   */
+  public void start(SimulationSession session, SimulationMode mode) {
+    try {
+      executor().execute(() -> {
+        try {
+          run(session, mode);
+        } catch (RuntimeException e) {
+          LOG.errorv(e, "Simulation session {0} failed", session.getId());
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      sessionRegistry.remove(session.getId());
+      throw new IllegalStateException("Too many simulations running or queued, try again later");
+    }
+  }
+
+  public void run(SimulationSession session, SimulationMode mode) {
+    run(session, mode, parallelDecideEnabled);
+  }
+
+  /**
+   * @param parallelDecide whether large agent populations may decide in parallel; callers that
+   *                       already run many sessions side by side pass false
+   */
+  void run(SimulationSession session, SimulationMode mode, boolean parallelDecide) {
+    try {
+      runLoop(session, mode, parallelDecide);
+      // Replications are summarized by the Monte Carlo service, not kept
+      if (session.getId() != null) {
+        runArchive.archive(session).ifPresent(session::archived);
+      }
+    } finally {
+      session.markFinished();
+    }
   }
 
-  private void runLoop(List<AgentService> agents, int maxRounds) {
-    statsHistory.clear();
-    bidHistory.clear();
-    equilibriumHistory.clear();
+  private void runLoop(SimulationSession session, SimulationMode mode, boolean parallelDecide) {
+    boolean live = mode == SimulationMode.LIVE;
+    AuctioneerService auctioneer = session.getAuctioneer();
+    auctioneer.setRoundLogging(live);
+    List<AgentService> agents = session.getAgents();
+    // One slot per agent, so parallel deciders never write to the same place. An agent that is not
+    // due to decide keeps its slot from an earlier round: its decision would come out the same
+    SlotBid[] decisions = new SlotBid[agents.size()];
+    Map<String, Map<String, Double>> agentValuations = session.valuations();
+    List<RoundStat> statsHistory = session.statsLog();
+    BidLog bidHistory = session.bidLog();
+    int[] bidderCodes = new int[agents.size()];
+    for (int i = 0; i < bidderCodes.length; i++) {
+      bidderCodes[i] = bidHistory.encodeAgent(agents.get(i).getAgentId());
+    }
+    List<EquilibriumRoundStat> equilibriumHistory = session.equilibriumLog();
+
+    // Valuations are fixed for the run, so the analysis only follows the items each round changes
+    EquilibriumTracker equilibrium = equilibriumAnalysisService.track(auctioneer.view(), agentValuations, agents);
+    session.setOptimalWelfare(equilibrium.optimalWelfare());
+
+    auctioneer.setMeters(metrics.auctioneer(session.getScenarioId()));
+    AuctionMetrics.RunMeters meters = metrics.run(session.getScenarioId(), agents);
+
+    DecisionSchedule schedule = eventDrivenEnabled
+            ? new DecisionSchedule(agents, auctioneer.view().slotCount())
+            : null;
+    IntConsumer slotChanged = schedule != null ? schedule::slotChanged : null;
+    TerminationDetector termination = earlyTerminationEnabled
+            ? new TerminationDetector(agents, auctioneer.view().slotCount())
+            : null;
+    // Set when the loop is left early; otherwise worked out from the auction once it is over
+    TerminationReason reason = null;
 
     int currentRound = 0;
-    System.out.println("DATA_CSV:Round,TotalBids,Revenue");
+    if (live) {
+      System.out.println("DATA_CSV:Round,TotalBids,Revenue");
+    }
 
-    while (currentRound < maxRounds) {
-      AuctionState state = auctioneer.getState();
+    while (currentRound < session.getMaxRounds()) {
+      MarketView market = auctioneer.view();
 
-      if (!state.isActive()) {
-        LOG.info("Simulation finished naturally (Equilibrium reached).");
+      if (!market.isActive()) {
+        if (live) {
+          LOG.info("Simulation finished naturally (Equilibrium reached).");
+        }
         break;
       }
 
       currentRound++;
 
+      long phaseStart = System.nanoTime();
+      int decisionsMade = schedule != null
+              ? decideDue(agents, market, decisions, schedule, parallelDecide)
+              : decideAll(agents, market, decisions, parallelDecide);
+      long decided = System.nanoTime();
+      meters.decided(decided - phaseStart);
+      meters.decisions(decisionsMade, agents.size() - decisionsMade);
+
+      // Bids enter the auction and the history in agent order, exactly as a sequential run would
       int bidsInThisRound = 0;
-      for (AgentService agent : agents) {
-        Bid bid = agent.decideBid(state);
+      for (int i = 0; i < decisions.length; i++) {
+        AgentService agent = agents.get(i);
+        SlotBid bid = decisions[i];
         if (bid != null) {
-          auctioneer.receiveBid(bid);
+          auctioneer.receiveBid(agent.getIndex(), bid.slot(), bid.amount());
           bidsInThisRound++;
-          bidHistory.add(new BidRecord(currentRound, agent.getAgentId(), bid.itemId(), bid.amount()));
+          bidHistory.append(currentRound, bidderCodes[i], bid.slot(), bid.amount());
+          meters.bid(i);
         }
       }
 
       auctioneer.resolveRound();
-      AuctionState resolvedState = auctioneer.getState();
+      MarketView resolved = auctioneer.view();
+      long resolvedAt = System.nanoTime();
+      meters.resolved(resolvedAt - decided);
+
+      // The tracker's update is the Nash bookkeeping; its stat is mostly the welfare sum
+      auctioneer.forEachChange(resolved.round(), slot -> equilibrium.update(resolved, slot));
+      long nashChecked = System.nanoTime();
+      meters.nashChecked(nashChecked - resolvedAt);
+
+      TerminationReason settled = null;
+      if (termination != null && resolved.isActive()) {
+        auctioneer.forEachChange(resolved.round(), slot -> termination.slotChanged(resolved, slot));
+        settled = termination.check(resolved.round(), equilibrium.agentsWhoCanGain());
+        if (settled != null) {
+          auctioneer.terminate();
+        }
+        meters.terminationChecked(System.nanoTime() - nashChecked);
+      }
+      if (schedule != null) {
+        auctioneer.forEachChange(resolved.round(), slotChanged);
+      }
 
-      double revenue = resolvedState.items().stream()
-              .mapToDouble(item -> item.price())
-              .sum();
+      double revenue = auctioneer.totalRevenue();
 
-      statsHistory.add(new RoundStat(currentRound, bidsInThisRound, revenue));
+      RoundStat roundStat = new RoundStat(currentRound, bidsInThisRound, revenue);
+      statsHistory.add(roundStat);
 
-      EquilibriumAnalysisService.NashEquilibriumResult nashResult = equilibriumAnalysisService.checkNashEquilibrium(
-              resolvedState, agentValuations, agents);
-      EquilibriumAnalysisService.ParetoEfficiencyResult paretoResult = equilibriumAnalysisService.calculateParetoEfficiency(
-              resolvedState, agentValuations);
+      long welfareStart = System.nanoTime();
+      EquilibriumRoundStat equilibriumStat = equilibrium.stat(currentRound);
+      meters.welfareComputed(System.nanoTime() - welfareStart);
+      meters.endRound();
+      equilibriumHistory.add(equilibriumStat);
+      session.publishRound(resolved.round(), resolved.isActive() && settled == null, roundStat, equilibriumStat);
 
-      equilibriumHistory.add(new EquilibriumRoundStat(
-              currentRound,
-              nashResult.isNashEquilibrium(),
-              nashResult.agentsWhoCanImprove().size(),
-              paretoResult.efficiencyRatio(),
-              paretoResult.currentSocialWelfare()
-      ));
+      if (live) {
+        System.out.println("DATA_CSV:" + currentRound + "," + bidsInThisRound + "," + revenue);
 
-      System.out.println("DATA_CSV:" + currentRound + "," + bidsInThisRound + "," + revenue);
+        try {
+          Thread.sleep(liveRoundDelayMs);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          LOG.warnv("Session {0} interrupted at round {1}", session.getId(), currentRound);
+          reason = TerminationReason.INTERRUPTED;
+          break;
+        }
+      }
+
+      if (settled != null) {
+        if (live) {
+          LOG.infov("Simulation finished early after round {0}: {1}", currentRound, settled);
+        }
+        reason = settled;
+        break;
+      }
+    }
 
-      try { Thread.sleep(50); } catch (InterruptedException e) {}
+    if (reason == null) {
+      reason = auctioneer.view().isActive() ? TerminationReason.MAX_ROUNDS : TerminationReason.STEADY_STATE;
     }
+    session.setTerminationReason(reason);
+    metrics.terminated(session.getScenarioId(), reason);
 
-    printFinalResults();
+    if (live) {
+      printFinalResults(auctioneer);
+    } else {
+      LOG.debugv("Session {0} finished after {1} rounds ({2})", session.getId(), currentRound, reason);
+    }
   }
 
-  private void printFinalResults() {
+  private int decideAll(List<AgentService> agents, MarketView market, SlotBid[] decisions, boolean parallel) {
+    if (parallel && decisions.length >= parallelDecideMinAgents) {
+      IntStream.range(0, decisions.length).parallel()
+              .forEach(i -> decisions[i] = agents.get(i).decideBid(market));
+    } else {
+      for (int i = 0; i < decisions.length; i++) {
+        decisions[i] = agents.get(i).decideBid(market);
+      }
+    }
+    return decisions.length;
+  }
+
+  /**
+   * Lets only the agents the schedule has due decide, and returns how many did.
+   */
+  private int decideDue(List<AgentService> agents, MarketView market, SlotBid[] decisions, DecisionSchedule schedule,
+                        boolean parallel) {
+    int due = schedule.prepare(market.round());
+    if (parallel && due >= parallelDecideMinAgents) {
+      IntStream.range(0, due).parallel().forEach(k -> {
+        int i = schedule.dueAgent(k);
+        decisions[i] = agents.get(i).decideBid(market);
+      });
+    } else {
+      for (int k = 0; k < due; k++) {
+        int i = schedule.dueAgent(k);
+        decisions[i] = agents.get(i).decideBid(market);
+      }
+    }
+    schedule.clear();
+    return due;
+  }
+
+  private void printFinalResults(AuctioneerService auctioneer) {
     System.out.println("\n====== FINAL ALLOCATION ======");
     var items = auctioneer.getState().items();
     double totalWelfare = 0;
@@ -170,14 +395,40 @@ public class SimulationRunner {
     System.out.println("==============================\n");
   }
 
-  public EquilibriumAnalysisService.NashEquilibriumResult getNashEquilibriumResult() {
-    AuctionState state = auctioneer.getState();
-    List<AgentService> agents = getCurrentAgents(); // You'll need to track this
-    return equilibriumAnalysisService.checkNashEquilibrium(state, agentValuations, agents);
+  private ThreadPoolExecutor executor() {
+    ThreadPoolExecutor current = executor;
+    if (current == null) {
+      synchronized (this) {
+        if (executor == null) {
+          int threads = runThreads > 0 ? runThreads : 2 * Runtime.getRuntime().availableProcessors();
+          AtomicInteger count = new AtomicInteger();
+          executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                  new ArrayBlockingQueue<>(Math.max(1, maxQueuedRuns)),
+                  task -> new Thread(task, "simulation-run-" + count.incrementAndGet()));
+          // Idle run threads go away between bursts of runs
+          executor.allowCoreThreadTimeOut(true);
+        }
+        current = executor;
+      }
+    }
+    return current;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (executor != null) {
+      // Interrupts LIVE runs in their sleep; they finish as INTERRUPTED
+      executor.shutdownNow();
+    }
+  }
+
+  public EquilibriumAnalysisService.NashEquilibriumResult getNashEquilibriumResult(SimulationSession session) {
+    AuctionState state = session.getAuctioneer().getState();
+    return equilibriumAnalysisService.checkNashEquilibrium(state, session.valuations(), session.getAgents());
   }
 
-  public EquilibriumAnalysisService.ParetoEfficiencyResult getParetoEfficiencyResult() {
-    AuctionState state = auctioneer.getState();
-    return equilibriumAnalysisService.calculateParetoEfficiency(state, agentValuations);
+  public EquilibriumAnalysisService.ParetoEfficiencyResult getParetoEfficiencyResult(SimulationSession session) {
+    AuctionState state = session.getAuctioneer().getState();
+    return equilibriumAnalysisService.calculateParetoEfficiency(state, session.valuations(), session.getAgents());
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,352 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AuctionDelta;
+import com.mtn.agent.domain.AuctionItem;
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidPage;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundEvent;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.TerminationReason;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.operators.multi.processors.BroadcastProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * One auction run: its own auctioneer, agents and history. Sessions are created and
+ * tracked by {@link SessionRegistry} so that several runs can proceed side by side.
+ *
+ * <p>Once the finished run has been archived, its history is read back from the {@link ArchivedRun}
+ * and the in-memory logs are let go.
+ */
+public class SimulationSession {
+
+  private final Long id;
+  private final Long scenarioId;
+  private final int maxRounds;
+  private final AuctioneerService auctioneer;
+
+  // Replaced by empty logs once archived; readers take these before looking at `archived`
+  private volatile List<RoundStat> statsHistory = Collections.synchronizedList(new ArrayList<>());
+  private volatile BidLog bidHistory = new BidLog();
+  private final Map<String, Map<String, Double>> agentValuations = new ConcurrentHashMap<>();
+  private volatile List<EquilibriumRoundStat> equilibriumHistory = Collections.synchronizedList(new ArrayList<>());
+
+  private volatile List<AgentService> agents = List.of();
+  private volatile boolean running = true;
+  private volatile boolean manual;
+  private volatile long lastUsed = System.nanoTime();
+  private volatile ArchivedRun archived;
+  private volatile TerminationReason terminationReason;
+  private volatile double optimalWelfare = Double.NaN;
+  // Bumped whenever a round is published or the run finishes; see PlotService
+  private final AtomicLong version = new AtomicLong();
+  private volatile PlotService.Dashboard dashboard;
+
+  // Resolved rounds, fanned out to event stream subscribers
+  private final BroadcastProcessor<ResolvedRound> rounds = BroadcastProcessor.create();
+  private volatile ResolvedRound lastRound;
+
+  SimulationSession(Long id, Long scenarioId, int maxRounds, AuctioneerService auctioneer) {
+    this.id = id;
+    this.scenarioId = scenarioId;
+    this.maxRounds = maxRounds;
+    this.auctioneer = auctioneer;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public Long getScenarioId() {
+    return scenarioId;
+  }
+
+  public int getMaxRounds() {
+    return maxRounds;
+  }
+
+  public AuctioneerService getAuctioneer() {
+    return auctioneer;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Whether the session is driven by hand through the auction API rather than by a simulation run.
+   */
+  public boolean isManual() {
+    return manual;
+  }
+
+  void setManual() {
+    this.manual = true;
+  }
+
+  // System.nanoTime() of the last lookup, for the idle timeout of manual sessions
+  long lastUsed() {
+    return lastUsed;
+  }
+
+  void touch() {
+    this.lastUsed = System.nanoTime();
+  }
+
+  /**
+   * The id under which the finished run was archived, if it was.
+   */
+  public Optional<Long> getRunId() {
+    ArchivedRun run = archived;
+    return run == null ? Optional.empty() : Optional.of(run.runId());
+  }
+
+  /**
+   * Switches the history over to the archived copy of the finished run and drops the in-memory
+   * logs. The archived run is published first, so a reader never sees neither.
+   */
+  void archived(ArchivedRun run) {
+    this.archived = run;
+    this.statsHistory = List.of();
+    this.bidHistory = new BidLog();
+    this.equilibriumHistory = List.of();
+  }
+
+  /**
+   * Why the run stopped; empty while it is running or if it never ran.
+   */
+  public Optional<TerminationReason> getTerminationReason() {
+    return Optional.ofNullable(terminationReason);
+  }
+
+  void setTerminationReason(TerminationReason terminationReason) {
+    this.terminationReason = terminationReason;
+  }
+
+  /**
+   * The Pareto-optimal welfare the run's tracker solved for at the start; NaN before that, or for
+   * sessions driven by hand.
+   */
+  public double getOptimalWelfare() {
+    return optimalWelfare;
+  }
+
+  void setOptimalWelfare(double optimalWelfare) {
+    this.optimalWelfare = optimalWelfare;
+  }
+
+  public synchronized void markFinished() {
+    if (!running) return;
+    this.running = false;
+    version.incrementAndGet();
+    rounds.onComplete();
+  }
+
+  /**
+   * Changes whenever what the session reports may have changed: each published round and the end
+   * of the run.
+   */
+  public long getVersion() {
+    return version.get();
+  }
+
+  /**
+   * Announces a resolved round to the event stream subscribers. The stats may be null when the
+   * auction is driven by hand.
+   */
+  public void publishRound(int round, boolean isActive, RoundStat stats, EquilibriumRoundStat equilibrium) {
+    ResolvedRound resolved = new ResolvedRound(round, isActive, stats, equilibrium);
+    lastRound = resolved;
+    version.incrementAndGet();
+    rounds.onNext(resolved);
+  }
+
+  /**
+   * One event per resolved round, completing when the session finishes. A subscriber that falls
+   * behind is not queued up for: the rounds it missed are coalesced into its next event, which
+   * carries their item changes but only the latest round's stats. The first event catches up with
+   * whatever was resolved before subscribing; a round published while the subscription is being
+   * set up is missed the same way.
+   */
+  public Multi<RoundEvent> events() {
+    return Multi.createFrom().deferred(() -> {
+      EventCursor cursor = new EventCursor();
+      return Multi.createBy().concatenating().streams(
+                      Multi.createFrom().item(() -> lastRound),
+                      rounds,
+                      // Emitted once the session has finished, so that a subscriber arriving while
+                      // it finished still sees the final state
+                      Multi.createFrom().item(() -> lastRound))
+              .onOverflow().dropPreviousItems()
+              .filter(cursor::isNew)
+              .map(cursor::next);
+    });
+  }
+
+  public List<AgentService> getAgents() {
+    return agents;
+  }
+
+  void setAgents(List<AgentService> agents) {
+    this.agents = List.copyOf(agents);
+  }
+
+  public List<RoundStat> getStatsHistory() {
+    return getStatsSince(0);
+  }
+
+  /**
+   * The stats of the rounds after {@code fromRound}. Rounds are logged in order from round 1, so
+   * they start at that index.
+   */
+  public List<RoundStat> getStatsSince(int fromRound) {
+    List<RoundStat> log = statsHistory;
+    ArchivedRun run = archived;
+    return run != null ? run.stats(Math.max(0, fromRound)) : since(log, fromRound);
+  }
+
+  public List<BidRecord> getBidHistory() {
+    List<BidRecord> bids = new ArrayList<>(bidCount());
+    scanBids(0, Integer.MAX_VALUE, BidFilter.ALL, bids::add);
+    return bids;
+  }
+
+  public int bidCount() {
+    BidLog log = bidHistory;
+    ArchivedRun run = archived;
+    return run != null ? run.bidCount() : log.size();
+  }
+
+  /**
+   * Up to {@code limit} bids matching the filter, starting at position {@code cursor} of the
+   * history. Only the returned records are materialized.
+   */
+  public BidPage getBids(int cursor, int limit, BidFilter filter) {
+    List<BidRecord> page = new ArrayList<>(Math.min(limit, 1024));
+    int next = scanBids(cursor, limit, filter, page::add);
+    return next >= 0 ? new BidPage(page, next, true) : new BidPage(page, ~next, false);
+  }
+
+  /**
+   * See {@link BidLog#scan}. The history is append-only, so positions stay valid while the run
+   * goes on.
+   */
+  public int scanBids(int cursor, int limit, BidFilter filter, Consumer<BidRecord> sink) {
+    BidLog log = bidHistory;
+    ArchivedRun run = archived;
+    return run != null ? run.scanBids(cursor, limit, filter, sink) : log.scan(cursor, limit, filter, sink);
+  }
+
+  /**
+   * Bid counts by agent name, for the agents that bid at all, counted without materializing
+   * records.
+   */
+  public Map<String, Long> getBidsPerAgent() {
+    BidLog log = bidHistory;
+    ArchivedRun run = archived;
+    if (run != null) return run.bidsPerAgent();
+
+    long[] counts = log.totalsByAgent().counts();
+    Map<String, Long> perAgent = new LinkedHashMap<>();
+    for (int agent = 0; agent < counts.length; agent++) {
+      if (counts[agent] > 0) {
+        perAgent.put(log.agentName(agent), counts[agent]);
+      }
+    }
+    return perAgent;
+  }
+
+  public List<EquilibriumRoundStat> getEquilibriumHistory() {
+    return getEquilibriumSince(0);
+  }
+
+  /**
+   * The equilibrium stats of the rounds after {@code fromRound}; see {@link #getStatsSince}.
+   */
+  public List<EquilibriumRoundStat> getEquilibriumSince(int fromRound) {
+    List<EquilibriumRoundStat> log = equilibriumHistory;
+    ArchivedRun run = archived;
+    return run != null ? run.equilibrium(Math.max(0, fromRound)) : since(log, fromRound);
+  }
+
+  public Map<String, Map<String, Double>> getAgentValuations() {
+    return new HashMap<>(agentValuations);
+  }
+
+  public List<AuctionItem> getFinalItems() {
+    return auctioneer.getState().items();
+  }
+
+  public boolean hasResults() {
+    List<RoundStat> log = statsHistory;
+    ArchivedRun run = archived;
+    return run != null ? run.summary().rounds() > 0 : !log.isEmpty();
+  }
+
+  private static <T> List<T> since(List<T> log, int fromRound) {
+    synchronized (log) {
+      int from = Math.max(0, fromRound);
+      return from >= log.size() ? new ArrayList<>() : new ArrayList<>(log.subList(from, log.size()));
+    }
+  }
+
+  // Mutable views used by SimulationRunner while the session is being driven; empty once archived
+  List<RoundStat> statsLog() {
+    return statsHistory;
+  }
+
+  BidLog bidLog() {
+    return bidHistory;
+  }
+
+  List<EquilibriumRoundStat> equilibriumLog() {
+    return equilibriumHistory;
+  }
+
+  Map<String, Map<String, Double>> valuations() {
+    return agentValuations;
+  }
+
+  PlotService.Dashboard dashboard() {
+    return dashboard;
+  }
+
+  void setDashboard(PlotService.Dashboard dashboard) {
+    this.dashboard = dashboard;
+  }
+
+  private record ResolvedRound(int round, boolean isActive, RoundStat stats, EquilibriumRoundStat equilibrium) {
+  }
+
+  // Per-subscriber position in the change log
+  private final class EventCursor {
+
+    private int round = 0;
+    private boolean active = true;
+
+    boolean isNew(ResolvedRound resolved) {
+      return resolved.round() > round || resolved.isActive() != active;
+    }
+
+    RoundEvent next(ResolvedRound resolved) {
+      AuctionDelta delta = auctioneer.getChangesSince(round);
+      RoundEvent event = new RoundEvent(id, round, resolved.round(), resolved.isActive(),
+              delta.changedItems(), resolved.stats(), resolved.equilibrium());
+      round = resolved.round();
+      active = resolved.isActive();
+      return event;
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.mtn.agent.service;
+
+/**
+ * A strategy's bid, addressed like {@link MarketView}: by slot index rather than item id. The
+ * bidder is whoever the strategy decided for. {@link com.mtn.agent.domain.Bid} is the form bids
+ * take over the API.
+ *
+ * @param slot   the slot index, 0-based
+ * @param amount the amount offered
+ */
+public record SlotBid(int slot, double amount) {
+}
@@ -0,0 +1,65 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.SlotIds;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An agent's private values indexed by slot. Keeps the dense array for O(1) lookups and the
+ * ascending list of slots it values at all, so strategies can skip slots worth nothing to it.
+ */
+public final class SlotValuations {
+
+  private final double[] values;
+  private final int[] valuedSlots;
+
+  private SlotValuations(double[] values) {
+    this.values = values;
+    this.valuedSlots = IntStream.range(0, values.length)
+            .filter(i -> values[i] > 0)
+            .toArray();
+  }
+
+  public static SlotValuations of(double[] values) {
+    return new SlotValuations(values.clone());
+  }
+
+  static SlotValuations wrap(double[] values) {
+    return new SlotValuations(values);
+  }
+
+  public double value(int slot) {
+    return slot >= 0 && slot < values.length ? values[slot] : 0.0;
+  }
+
+  /**
+   * Slots with a positive value, in ascending order. Callers must not modify the array.
+   */
+  public int[] valuedSlots() {
+    return valuedSlots;
+  }
+
+  public int slotCount() {
+    return values.length;
+  }
+
+  /**
+   * The "SLOT_n" keyed view used by the REST API and the equilibrium analysis.
+   */
+  public Map<String, Double> toMap() {
+    Map<String, Double> map = new LinkedHashMap<>();
+    for (int slot : valuedSlots) {
+      map.put(SlotIds.id(slot), values[slot]);
+    }
+    return Collections.unmodifiableMap(map);
+  }
+
+  @Override
+  public String toString() {
+    return "SlotValuations" + Arrays.toString(values);
+  }
+}
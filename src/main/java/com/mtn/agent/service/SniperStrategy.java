@@ -0,0 +1,37 @@
+package com.mtn.agent.service;
+
+import jakarta.inject.Singleton;
+
+/**
+ * Holds back for the first rounds, then bids like {@link MyopicStrategy}.
+ */
+@Singleton
+public class SniperStrategy implements BiddingStrategy {
+
+  private static final int FIRST_BIDDING_ROUND = 3;
+
+  private final MyopicStrategy myopic = new MyopicStrategy();
+
+  @Override
+  public String getName() {
+    return "SNIPER";
+  }
+
+  // Up to its first bid the answer changes with the round alone; after that it is myopic
+  @Override
+  public boolean isRoundDependent(int round) {
+    return round <= FIRST_BIDDING_ROUND;
+  }
+
+  @Override
+  public boolean bidsOnlyForGain() {
+    return true;
+  }
+
+  @Override
+  public SlotBid decide(MarketView market, BidderProfile bidder) {
+    if (market.round() < FIRST_BIDDING_ROUND) return null;
+
+    return myopic.decide(market, bidder);
+  }
+}
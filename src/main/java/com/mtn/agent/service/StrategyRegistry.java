@@ -0,0 +1,93 @@
+package com.mtn.agent.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The bidding strategies available to scenarios, keyed by upper-cased name. Every
+ * {@link BiddingStrategy} bean is picked up, so a strategy from another jar only needs to be a
+ * bean in a bean archive (a {@code beans.xml} or a Jandex index) to become usable.
+ */
+@ApplicationScoped
+public class StrategyRegistry {
+
+  private static final Logger LOG = Logger.getLogger(StrategyRegistry.class);
+
+  /**
+   * Used for agents that do not name a strategy.
+   */
+  public static final String DEFAULT_TYPE = "MYOPIC";
+
+  @Inject
+  @Any
+  Instance<BiddingStrategy> discovered;
+
+  private final Map<String, BiddingStrategy> strategies = new TreeMap<>();
+
+  @PostConstruct
+  void discover() {
+    for (BiddingStrategy strategy : discovered) {
+      register(strategy);
+    }
+    LOG.infov("Bidding strategies: {0}", strategies.keySet());
+  }
+
+  /**
+   * A registry of the given strategies, for code that runs without a container.
+   */
+  static StrategyRegistry of(BiddingStrategy... strategies) {
+    StrategyRegistry registry = new StrategyRegistry();
+    for (BiddingStrategy strategy : strategies) {
+      registry.register(strategy);
+    }
+    return registry;
+  }
+
+  /**
+   * The strategy of the given type; null selects the default.
+   */
+  public Optional<BiddingStrategy> find(String type) {
+    return Optional.ofNullable(strategies.get(key(type)));
+  }
+
+  /**
+   * Like {@link #find}, but an unknown type is an {@link IllegalArgumentException}.
+   */
+  public BiddingStrategy require(String type) {
+    BiddingStrategy strategy = strategies.get(key(type));
+    if (strategy == null) {
+      throw new IllegalArgumentException("Unknown strategy type " + type + " (expected one of " + names() + ")");
+    }
+    return strategy;
+  }
+
+  public boolean isKnown(String type) {
+    return strategies.containsKey(key(type));
+  }
+
+  public Set<String> names() {
+    return strategies.keySet();
+  }
+
+  private void register(BiddingStrategy strategy) {
+    BiddingStrategy previous = strategies.putIfAbsent(key(strategy.getName()), strategy);
+    if (previous != null) {
+      throw new IllegalStateException("Strategy type " + strategy.getName() + " is provided by both "
+              + previous.getClass().getName() + " and " + strategy.getClass().getName());
+    }
+  }
+
+  private static String key(String type) {
+    return type == null ? DEFAULT_TYPE : type.toUpperCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,220 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.domain.SweepRange;
+import com.mtn.agent.domain.SweepRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.random.RandomGenerator;
+
+/**
+ * Turns the ranges of a {@link SweepRequest} into the cells of a sweep, either as the full grid of
+ * their points or as a Latin hypercube sample. Parameters without a range keep the scenario's value.
+ */
+final class SweepDesign {
+
+  static final String EPSILON = "epsilon";
+  static final String SLOTS = "numberOfSlots";
+  static final String MAX_ROUNDS = "maxRounds";
+  static final String STRATEGY_SHARE = "strategyShare";
+
+  private static final List<String> PARAMETERS = List.of(EPSILON, SLOTS, MAX_ROUNDS, STRATEGY_SHARE);
+
+  private SweepDesign() {
+  }
+
+  /**
+   * One combination of parameters. {@code strategyShare} is NaN when the agents keep their own
+   * strategies.
+   */
+  record Cell(double epsilon, int numberOfSlots, int maxRounds, double strategyShare) {
+  }
+
+  /**
+   * @throws IllegalArgumentException if a range is malformed or out of bounds, or the design has
+   *                                  more than {@code maxCells} cells
+   */
+  static List<Cell> cells(SweepRequest request, ScenarioData template, int maxCells, RandomGenerator rng) {
+    Map<String, Axis> axes = axes(request);
+    String design = request.design() == null ? "grid" : request.design().toLowerCase(Locale.ROOT);
+
+    double[] fixed = {template.epsilon(), template.numberOfSlots(), template.maxRounds(), Double.NaN};
+    List<Axis> ordered = new ArrayList<>(PARAMETERS.size());
+    for (String parameter : PARAMETERS) {
+      ordered.add(axes.get(parameter));
+    }
+
+    return switch (design) {
+      case "grid" -> grid(ordered, fixed, maxCells);
+      case "lhs" -> {
+        Integer samples = request.samples();
+        if (samples == null || samples <= 0 || samples > maxCells) {
+          throw new IllegalArgumentException("samples must be between 1 and " + maxCells);
+        }
+        yield latinHypercube(ordered, fixed, samples, rng);
+      }
+      default -> throw new IllegalArgumentException("unknown design " + request.design() + ", expected grid or lhs");
+    };
+  }
+
+  private static List<Cell> grid(List<Axis> axes, double[] fixed, int maxCells) {
+    double[][] points = new double[axes.size()][];
+    long count = 1;
+    for (int d = 0; d < axes.size(); d++) {
+      Axis axis = axes.get(d);
+      if (axis != null && axis.steps() > maxCells) {
+        throw new IllegalArgumentException("the grid has more than " + maxCells + " cells");
+      }
+      points[d] = axis == null ? new double[]{fixed[d]} : axis.gridPoints();
+      count *= points[d].length;
+      if (count > maxCells) {
+        throw new IllegalArgumentException("the grid has more than " + maxCells + " cells");
+      }
+    }
+
+    List<Cell> cells = new ArrayList<>((int) count);
+    int[] position = new int[axes.size()];
+    for (int c = 0; c < count; c++) {
+      cells.add(new Cell(points[0][position[0]], (int) points[1][position[1]], (int) points[2][position[2]],
+              points[3][position[3]]));
+      // Last parameter varies fastest
+      for (int d = axes.size() - 1; d >= 0 && ++position[d] == points[d].length; d--) {
+        position[d] = 0;
+      }
+    }
+    return cells;
+  }
+
+  // Each parameter's interval is cut into n strata and every stratum is used by exactly one cell
+  private static List<Cell> latinHypercube(List<Axis> axes, double[] fixed, int samples, RandomGenerator rng) {
+    double[][] values = new double[axes.size()][samples];
+    for (int d = 0; d < axes.size(); d++) {
+      Axis axis = axes.get(d);
+      if (axis == null) {
+        Arrays.fill(values[d], fixed[d]);
+        continue;
+      }
+      int[] strata = new int[samples];
+      for (int i = 0; i < samples; i++) strata[i] = i;
+      for (int i = samples - 1; i > 0; i--) {
+        int j = rng.nextInt(i + 1);
+        int swap = strata[i];
+        strata[i] = strata[j];
+        strata[j] = swap;
+      }
+      for (int i = 0; i < samples; i++) {
+        values[d][i] = axis.at((strata[i] + rng.nextDouble()) / samples);
+      }
+    }
+
+    List<Cell> cells = new ArrayList<>(samples);
+    for (int i = 0; i < samples; i++) {
+      cells.add(new Cell(values[0][i], (int) values[1][i], (int) values[2][i], values[3][i]));
+    }
+    return cells;
+  }
+
+  private static Map<String, Axis> axes(SweepRequest request) {
+    Map<String, Axis> axes = new LinkedHashMap<>();
+    if (request.parameters() == null) return axes;
+    for (Map.Entry<String, SweepRange> entry : request.parameters().entrySet()) {
+      String parameter = entry.getKey();
+      if (!PARAMETERS.contains(parameter)) {
+        throw new IllegalArgumentException("unknown parameter " + parameter + ", expected one of " + PARAMETERS);
+      }
+      if (entry.getValue() == null) {
+        throw new IllegalArgumentException(parameter + " has no range");
+      }
+      axes.put(parameter, Axis.of(parameter, entry.getValue()));
+    }
+    if (axes.containsKey(STRATEGY_SHARE) && request.mixStrategy() == null) {
+      throw new IllegalArgumentException("strategyShare needs a mixStrategy");
+    }
+    return axes;
+  }
+
+  /**
+   * A validated range. Integer parameters are rounded, so their grid points are deduplicated.
+   */
+  private record Axis(String parameter, double[] values, double min, double max, int steps, boolean log) {
+
+    static Axis of(String parameter, SweepRange range) {
+      if (range.values() != null) {
+        if (range.values().isEmpty()) throw new IllegalArgumentException(parameter + " has no values");
+        double[] values = new double[range.values().size()];
+        for (int i = 0; i < values.length; i++) {
+          Double value = range.values().get(i);
+          if (value == null) throw new IllegalArgumentException(parameter + " has a null value");
+          values[i] = isInteger(parameter) ? Math.round(check(parameter, value)) : check(parameter, value);
+        }
+        return new Axis(parameter, values, Double.NaN, Double.NaN, values.length, false);
+      }
+
+      if (range.min() == null || range.max() == null) {
+        throw new IllegalArgumentException(parameter + " needs values, or min and max");
+      }
+      double min = check(parameter, range.min());
+      double max = check(parameter, range.max());
+      if (min > max) throw new IllegalArgumentException(parameter + " has min above max");
+      int steps = range.steps() != null ? range.steps() : 2;
+      if (steps <= 0) throw new IllegalArgumentException(parameter + " needs at least one step");
+
+      String scale = range.scale() == null ? "linear" : range.scale().toLowerCase(Locale.ROOT);
+      if (!scale.equals("linear") && !scale.equals("log")) {
+        throw new IllegalArgumentException("unknown scale " + range.scale() + ", expected linear or log");
+      }
+      boolean log = scale.equals("log");
+      if (log && min <= 0) throw new IllegalArgumentException(parameter + " needs a positive min on a log scale");
+      return new Axis(parameter, null, min, max, steps, log);
+    }
+
+    double[] gridPoints() {
+      if (values != null) return distinct(values);
+      double[] points = new double[steps];
+      for (int i = 0; i < steps; i++) {
+        points[i] = at(steps == 1 ? 0.0 : (double) i / (steps - 1));
+      }
+      return distinct(points);
+    }
+
+    // The point a fraction u of the way through the range
+    double at(double u) {
+      if (values != null) return values[Math.min(values.length - 1, (int) (u * values.length))];
+      double value = log
+              ? Math.exp(Math.log(min) + u * (Math.log(max) - Math.log(min)))
+              : min + u * (max - min);
+      value = Math.min(max, Math.max(min, value));
+      return isInteger(parameter) ? Math.round(value) : value;
+    }
+
+    private double[] distinct(double[] points) {
+      return Arrays.stream(points).distinct().toArray();
+    }
+
+    private static double check(String parameter, double value) {
+      boolean valid = switch (parameter) {
+        case EPSILON -> value > 0 && Double.isFinite(value);
+        case SLOTS, MAX_ROUNDS -> value >= 1 && value <= Integer.MAX_VALUE;
+        default -> value >= 0 && value <= 1;
+      };
+      if (!valid) {
+        String bound = switch (parameter) {
+          case EPSILON -> "positive";
+          case SLOTS, MAX_ROUNDS -> "at least 1";
+          default -> "between 0 and 1";
+        };
+        throw new IllegalArgumentException(parameter + " must be " + bound + ", not " + value);
+      }
+      return value;
+    }
+
+    private static boolean isInteger(String parameter) {
+      return parameter.equals(SLOTS) || parameter.equals(MAX_ROUNDS);
+    }
+  }
+}
@@ -0,0 +1,452 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.RoundStat;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.domain.SweepRequest;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ * Runs parameter sweeps: every cell of a {@link SweepDesign} is its own variant of a scenario,
+ * replicated a number of times and summarized as one row of the result table.
+ *
+ * <p>Sweeps run in the background on one work-stealing pool shared by all of them. A cell is the
+ * unit of work: its scenario is built once and its replications run back to back on one worker,
+ * summarized in that worker's reusable buffers. Cells see common random numbers: replication
+ * {@code i} of every cell draws from the same stream, the one replication {@code i} of a Monte
+ * Carlo run with the sweep's seed uses, so differences between cells come from the parameters
+ * rather than from sampling noise. Cancelling stops a sweep before its next replication; the
+ * rows of the cells already finished are kept.
+ */
+@ApplicationScoped
+public class SweepService {
+
+  private static final Logger LOG = Logger.getLogger(SweepService.class);
+
+  static final List<String> CSV_COLUMNS = List.of("cell", "epsilon", "numberOfSlots", "maxRounds", "strategyShare",
+          "replications", "revenueMean", "revenueStdDev", "revenueMedian", "roundsMean", "paretoEfficiencyMean",
+          "paretoEfficiencyStdDev", "nashRate", "socialWelfareMean", "elapsedMs");
+
+  // Replication buffers of the pool's worker threads, grown as needed and reused by every cell
+  private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+  @Inject
+  SimulationRunner simulationRunner;
+
+  @Inject
+  ScenarioService scenarioService;
+
+  @Inject
+  StrategyRegistry strategyRegistry;
+
+  // 0 = one worker per available core
+  @ConfigProperty(name = "auction.sweep.parallelism", defaultValue = "0")
+  int parallelism;
+
+  @ConfigProperty(name = "auction.sweep.max-cells", defaultValue = "100000")
+  int maxCells;
+
+  @ConfigProperty(name = "auction.sweep.max-runs", defaultValue = "10000000")
+  long maxRuns;
+
+  @ConfigProperty(name = "auction.sweep.max-active", defaultValue = "4")
+  int maxActive;
+
+  @ConfigProperty(name = "auction.sweep.max-retained", defaultValue = "20")
+  int maxRetained;
+
+  private final ConcurrentNavigableMap<Long, Sweep> sweeps = new ConcurrentSkipListMap<>();
+  private final AtomicLong sweepIdGenerator = new AtomicLong(1);
+
+  private volatile ForkJoinPool pool;
+
+  /**
+   * Starts a sweep in the background. Empty if the scenario does not exist.
+   *
+   * @throws IllegalArgumentException if the request is invalid or too large
+   * @throws IllegalStateException    if too many sweeps are already running
+   */
+  public synchronized Optional<SweepStatus> start(SweepRequest request) {
+    int replications = request.replications() != null ? request.replications() : 10;
+    if (replications <= 0) throw new IllegalArgumentException("replications must be positive");
+
+    Optional<ScenarioData> template = scenarioService.getScenario(request.scenarioId());
+    if (template.isEmpty()) return Optional.empty();
+    simulationRunner.checkStrategies(template.get());
+    if (request.mixStrategy() != null) strategyRegistry.require(request.mixStrategy());
+
+    long seed = request.seed() != null ? request.seed() : ThreadLocalRandom.current().nextLong();
+    // The design draws from its own stream, not from any replication's
+    List<SweepDesign.Cell> cells = SweepDesign.cells(request, template.get(), maxCells, new SplittableRandom(~seed));
+    if ((long) cells.size() * replications > maxRuns) {
+      throw new IllegalArgumentException(cells.size() + " cells of " + replications + " replications are more than "
+              + maxRuns + " runs");
+    }
+
+    long active = sweeps.values().stream().filter(Sweep::isRunning).count();
+    if (active >= maxActive) {
+      throw new IllegalStateException(active + " sweeps are already running");
+    }
+
+    Sweep sweep = new Sweep(sweepIdGenerator.getAndIncrement(), template.get(), request, cells, replications, seed);
+    sweeps.put(sweep.id, sweep);
+    evictFinished();
+    LOG.infov("Sweep {0}: {1} cells x {2} replications of scenario {3} (seed {4})",
+            sweep.id, cells.size(), replications, sweep.template.id(), seed);
+
+    pool().execute(() -> execute(sweep));
+    return Optional.of(sweep.status());
+  }
+
+  public List<SweepStatus> getSweeps() {
+    return sweeps.values().stream().map(Sweep::status).toList();
+  }
+
+  public Optional<SweepStatus> getStatus(Long sweepId) {
+    return find(sweepId).map(Sweep::status);
+  }
+
+  /**
+   * The rows of the cells finished so far, in cell order. Complete once the sweep is.
+   */
+  public Optional<List<SweepRow>> getResults(Long sweepId) {
+    return find(sweepId).map(Sweep::rows);
+  }
+
+  /**
+   * Asks a running sweep to stop. Replications under way finish, no new one starts.
+   */
+  public Optional<SweepStatus> cancel(Long sweepId) {
+    Optional<Sweep> sweep = find(sweepId);
+    sweep.ifPresent(s -> s.cancelRequested = true);
+    return sweep.map(Sweep::status);
+  }
+
+  public void exportCsv(List<SweepRow> rows, OutputStream output) throws IOException {
+    Writer out = new OutputStreamWriter(new BufferedOutputStream(output, 64 * 1024), StandardCharsets.UTF_8);
+    out.write(String.join(",", CSV_COLUMNS));
+    out.write('\n');
+    for (SweepRow row : rows) {
+      out.write(row.cell() + "," + row.epsilon() + "," + row.numberOfSlots() + "," + row.maxRounds() + ","
+              + (row.strategyShare() != null ? row.strategyShare() : "") + "," + row.replications() + ","
+              + row.revenueMean() + "," + row.revenueStdDev() + "," + row.revenueMedian() + ","
+              + row.roundsMean() + "," + row.paretoEfficiencyMean() + "," + row.paretoEfficiencyStdDev() + ","
+              + row.nashRate() + "," + row.socialWelfareMean() + "," + row.elapsedMs());
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  private Optional<Sweep> find(Long sweepId) {
+    return sweepId == null ? Optional.empty() : Optional.ofNullable(sweeps.get(sweepId));
+  }
+
+  private void execute(Sweep sweep) {
+    try {
+      // Runs inside the pool, so the parallel stream splits the cells over its workers
+      IntStream.range(0, sweep.cells.size()).parallel().forEach(cell -> {
+        if (!sweep.cancelRequested) runCell(sweep, cell);
+      });
+      sweep.finish(sweep.completedCells.get() == sweep.cells.size() ? State.COMPLETED : State.CANCELLED, null);
+    } catch (RuntimeException e) {
+      LOG.errorv(e, "Sweep {0} failed", sweep.id);
+      sweep.finish(State.FAILED, String.valueOf(e.getMessage()));
+    }
+    LOG.infov("Sweep {0} {1} after {2} of {3} cells in {4} ms",
+            sweep.id, sweep.state, sweep.completedCells.get(), sweep.cells.size(), sweep.elapsedMs());
+  }
+
+  private void runCell(Sweep sweep, int index) {
+    long start = System.nanoTime();
+    SweepDesign.Cell cell = sweep.cells.get(index);
+    ScenarioData scenario = sweep.scenarioOf(cell);
+    int replications = sweep.replications;
+    Scratch scratch = SCRATCH.get();
+    scratch.ensure(replications);
+
+    SplittableRandom root = new SplittableRandom(sweep.seed);
+    int nash = 0;
+    for (int r = 0; r < replications; r++) {
+      if (sweep.cancelRequested) return;
+
+      SimulationSession replica = simulationRunner.prepareReplication(scenario, root.split());
+      simulationRunner.run(replica, SimulationMode.BATCH, false);
+
+      List<RoundStat> stats = replica.statsLog();
+      List<EquilibriumRoundStat> equilibrium = replica.equilibriumLog();
+      scratch.rounds[r] = stats.size();
+      scratch.revenue[r] = stats.isEmpty() ? 0.0 : stats.get(stats.size() - 1).revenue();
+      EquilibriumRoundStat last = equilibrium.isEmpty() ? null : equilibrium.get(equilibrium.size() - 1);
+      scratch.efficiency[r] = last != null ? last.paretoEfficiencyRatio() : 0.0;
+      scratch.welfare[r] = last != null ? last.socialWelfare() : 0.0;
+      if (last != null && last.agentsWhoCanImprove() == 0) nash++;
+    }
+
+    double revenueMean = mean(scratch.revenue, replications);
+    double efficiencyMean = mean(scratch.efficiency, replications);
+    sweep.complete(index, new SweepRow(
+            index,
+            cell.epsilon(),
+            cell.numberOfSlots(),
+            cell.maxRounds(),
+            Double.isNaN(cell.strategyShare()) ? null : cell.strategyShare(),
+            replications,
+            revenueMean,
+            stdDev(scratch.revenue, replications, revenueMean),
+            median(scratch.revenue, replications),
+            mean(scratch.rounds, replications),
+            efficiencyMean,
+            stdDev(scratch.efficiency, replications, efficiencyMean),
+            (double) nash / replications,
+            mean(scratch.welfare, replications),
+            (System.nanoTime() - start) / 1_000_000
+    ));
+  }
+
+  private static double mean(double[] values, int count) {
+    double sum = 0;
+    for (int i = 0; i < count; i++) sum += values[i];
+    return sum / count;
+  }
+
+  // Sample standard deviation, as in the Monte Carlo distributions
+  private static double stdDev(double[] values, int count, double mean) {
+    double squares = 0;
+    for (int i = 0; i < count; i++) squares += (values[i] - mean) * (values[i] - mean);
+    return Math.sqrt(squares / Math.max(1, count - 1));
+  }
+
+  // Sorts the buffer in place: it is scratch space
+  private static double median(double[] values, int count) {
+    Arrays.sort(values, 0, count);
+    return count % 2 == 1 ? values[count / 2] : (values[count / 2 - 1] + values[count / 2]) / 2;
+  }
+
+  private void evictFinished() {
+    int excess = sweeps.size() - maxRetained;
+    for (Sweep sweep : sweeps.values()) {
+      if (excess <= 0) break;
+      if (!sweep.isRunning()) {
+        sweeps.remove(sweep.id);
+        excess--;
+      }
+    }
+  }
+
+  private ForkJoinPool pool() {
+    ForkJoinPool current = pool;
+    if (current == null) {
+      synchronized (this) {
+        if (pool == null) {
+          int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+          pool = new ForkJoinPool(threads);
+        }
+        current = pool;
+      }
+    }
+    return current;
+  }
+
+  @PreDestroy
+  void shutdown() {
+    sweeps.values().forEach(sweep -> sweep.cancelRequested = true);
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  enum State {
+    RUNNING,
+    CANCELLING,
+    COMPLETED,
+    CANCELLED,
+    FAILED
+  }
+
+  private static final class Sweep {
+
+    final long id;
+    final ScenarioData template;
+    final String design;
+    final String mixStrategy;
+    final List<SweepDesign.Cell> cells;
+    final int replications;
+    final long seed;
+    final long startNanos = System.nanoTime();
+
+    final AtomicReferenceArray<SweepRow> rows;
+    final AtomicInteger completedCells = new AtomicInteger();
+    volatile boolean cancelRequested;
+    volatile State state = State.RUNNING;
+    volatile String error;
+    volatile long endNanos;
+
+    Sweep(long id, ScenarioData template, SweepRequest request, List<SweepDesign.Cell> cells, int replications,
+          long seed) {
+      this.id = id;
+      this.template = template;
+      this.design = request.design() == null ? "grid" : request.design().toLowerCase(Locale.ROOT);
+      this.mixStrategy = request.mixStrategy();
+      this.cells = cells;
+      this.replications = replications;
+      this.seed = seed;
+      this.rows = new AtomicReferenceArray<>(cells.size());
+    }
+
+    boolean isRunning() {
+      return state == State.RUNNING;
+    }
+
+    // The template with the cell's parameters, and its agents mixed if the cell says so
+    ScenarioData scenarioOf(SweepDesign.Cell cell) {
+      List<AgentData> agents = template.agents();
+      if (!Double.isNaN(cell.strategyShare())) {
+        double share = cell.strategyShare();
+        List<AgentData> mixed = new ArrayList<>(agents.size());
+        for (int i = 0; i < agents.size(); i++) {
+          AgentData agent = agents.get(i);
+          // Switches floor(n * share) agents, evenly spread over the list
+          boolean switched = Math.floor((i + 1) * share) > Math.floor(i * share);
+          mixed.add(switched
+                  ? new AgentData(agent.id(), agent.agentName(), mixStrategy, agent.valuationType(),
+                  agent.targetSlot(), agent.budgetLimit())
+                  : agent);
+        }
+        agents = mixed;
+      }
+      return new ScenarioData(template.id(), template.name(), cell.numberOfSlots(), cell.maxRounds(),
+              cell.epsilon(), agents);
+    }
+
+    void complete(int cell, SweepRow row) {
+      rows.set(cell, row);
+      completedCells.incrementAndGet();
+    }
+
+    void finish(State finalState, String failure) {
+      error = failure;
+      endNanos = System.nanoTime();
+      state = finalState;
+    }
+
+    long elapsedMs() {
+      long end = state == State.RUNNING ? System.nanoTime() : endNanos;
+      return (end - startNanos) / 1_000_000;
+    }
+
+    List<SweepRow> rows() {
+      List<SweepRow> finished = new ArrayList<>(completedCells.get());
+      for (int i = 0; i < rows.length(); i++) {
+        SweepRow row = rows.get(i);
+        if (row != null) finished.add(row);
+      }
+      return finished;
+    }
+
+    SweepStatus status() {
+      State current = state;
+      int done = completedCells.get();
+      long elapsed = elapsedMs();
+      Long remaining = current == State.RUNNING && done > 0
+              ? elapsed * (cells.size() - done) / done
+              : null;
+      return new SweepStatus(
+              id,
+              template.id(),
+              design,
+              current == State.RUNNING && cancelRequested ? State.CANCELLING.name() : current.name(),
+              cells.size(),
+              done,
+              replications,
+              seed,
+              (double) done / cells.size(),
+              elapsed,
+              remaining,
+              error
+      );
+    }
+  }
+
+  private static final class Scratch {
+
+    double[] revenue = new double[0];
+    double[] rounds = new double[0];
+    double[] efficiency = new double[0];
+    double[] welfare = new double[0];
+
+    void ensure(int replications) {
+      if (revenue.length < replications) {
+        revenue = new double[replications];
+        rounds = new double[replications];
+        efficiency = new double[replications];
+        welfare = new double[replications];
+      }
+    }
+  }
+
+  // Result classes
+  public record SweepStatus(
+          long id,
+          Long scenarioId,
+          String design,
+          String state,
+          int cells,
+          int completedCells,
+          int replications,
+          long seed,
+          double progress,
+          long elapsedMs,
+          Long remainingMs,
+          String error
+  ) {
+  }
+
+  /**
+   * One cell of a sweep: its parameters and the summary of its replications. The strategy share is
+   * null when the sweep does not vary the agent mix.
+   */
+  public record SweepRow(
+          int cell,
+          double epsilon,
+          int numberOfSlots,
+          int maxRounds,
+          Double strategyShare,
+          int replications,
+          double revenueMean,
+          double revenueStdDev,
+          double revenueMedian,
+          double roundsMean,
+          double paretoEfficiencyMean,
+          double paretoEfficiencyStdDev,
+          double nashRate,
+          double socialWelfareMean,
+          long elapsedMs
+  ) {
+  }
+}
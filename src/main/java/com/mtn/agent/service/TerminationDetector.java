@@ -0,0 +1,109 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.TerminationReason;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ends a run as soon as its outcome is settled, rather than when a round changes nothing or the
+ * round limit is hit. Both checks need every agent to decide from the market alone, that is none
+ * to be round-dependent any more in the sense of {@link BiddingStrategy#isRoundDependent}:
+ * <ul>
+ *   <li>a Nash-terminal state: nobody could gain from an item they do not hold and every strategy
+ *       {@linkplain BiddingStrategy#bidsOnlyForGain() only bids for a gain}, so the next round
+ *       would have no bids;</li>
+ *   <li>a cycle: the prices and winners after a round are those after an earlier one, so the
+ *       rounds in between would repeat forever.</li>
+ * </ul>
+ *
+ * <p>States are compared by a 64-bit hash of the price and winner vector, kept up to date from
+ * the slots each round changes. Prices never fall, so a state can only come back while no price
+ * rises; the hashes seen are forgotten on every price rise and the set stays small. Not
+ * thread-safe: the run loop calls it between rounds.
+ */
+final class TerminationDetector {
+
+  private final List<AgentService> agents;
+  private final boolean allBidOnlyForGain;
+
+  // Round-dependent agents, first roundDependentCount entries; as in DecisionSchedule they never return
+  private final int[] roundDependent;
+  private int roundDependentCount;
+
+  private final double[] prices;
+  private final int[] winners;
+  private long stateHash;
+  private boolean priceRose;
+  private final Set<Long> seen = new HashSet<>();
+
+  TerminationDetector(List<AgentService> agents, int slotCount) {
+    this.agents = agents;
+    this.allBidOnlyForGain = agents.stream().allMatch(AgentService::bidsOnlyForGain);
+    this.roundDependent = new int[agents.size()];
+    for (int i = 0; i < roundDependent.length; i++) {
+      roundDependent[i] = i;
+    }
+    this.roundDependentCount = agents.size();
+
+    this.prices = new double[slotCount];
+    this.winners = new int[slotCount];
+    for (int slot = 0; slot < slotCount; slot++) {
+      winners[slot] = MarketView.NO_WINNER;
+      stateHash ^= slotHash(slot, 0.0, MarketView.NO_WINNER);
+    }
+  }
+
+  /**
+   * Brings the state hash up to date with a changed slot, as it stands in {@code market}.
+   */
+  void slotChanged(MarketView market, int slot) {
+    double price = market.price(slot);
+    int winner = market.winner(slot);
+    stateHash ^= slotHash(slot, prices[slot], winners[slot]) ^ slotHash(slot, price, winner);
+    if (price > prices[slot]) priceRose = true;
+    prices[slot] = price;
+    winners[slot] = winner;
+  }
+
+  /**
+   * Why the run can stop after round {@code round}, once all its changes are in; null to go on.
+   *
+   * @param agentsWhoCanGain as counted by {@link EquilibriumTracker#agentsWhoCanGain()}
+   */
+  TerminationReason check(int round, int agentsWhoCanGain) {
+    boolean fromMarketAlone = pruneRoundDependent(round) == 0;
+    if (priceRose || !fromMarketAlone) {
+      seen.clear();
+      priceRose = false;
+    }
+    if (!fromMarketAlone) return null;
+
+    if (allBidOnlyForGain && agentsWhoCanGain == 0) return TerminationReason.NASH_EQUILIBRIUM;
+    if (!seen.add(stateHash)) return TerminationReason.CYCLE;
+    return null;
+  }
+
+  // Agents still round-dependent when deciding after `round`
+  private int pruneRoundDependent(int round) {
+    int kept = 0;
+    for (int k = 0; k < roundDependentCount; k++) {
+      int agent = roundDependent[k];
+      if (agents.get(agent).isRoundDependent(round)) {
+        roundDependent[kept++] = agent;
+      }
+    }
+    roundDependentCount = kept;
+    return kept;
+  }
+
+  // Zobrist-style: each slot's contribution is mixed on its own, so a change XORs out and in
+  private static long slotHash(int slot, double price, int winner) {
+    long h = Double.doubleToLongBits(price) * 0x9E3779B97F4A7C15L
+            + ((long) slot << 32 | (winner & 0xFFFFFFFFL)) * 0xC2B2AE3D27D4EB4FL;
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    return h ^ (h >>> 31);
+  }
+}
@@ -2,31 +2,47 @@ package com.mtn.agent.service;
 
 import jakarta.enterprise.context.ApplicationScoped;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Random;
+import java.util.Set;
+import java.util.random.RandomGenerator;
 
 @ApplicationScoped
 public class ValuationGenerator {
 
+  // The types with a dedicated case below; anything else gets the generic default profile
+  private static final Set<String> TYPES = Set.of("RICH", "POOR", "FOCUSED", "BUNDLE_PAIR", "FLEXIBLE_PAIR", "RANDOM");
+
   private final Random rand = new Random();
 
+  public static boolean isKnownType(String type) {
+    return type != null && TYPES.contains(type.toUpperCase());
+  }
+
+
+  public SlotValuations generate(String type, int slotCount, int targetSlot) {
+    return generate(type, slotCount, targetSlot, rand);
+  }
 
-  public Map<String, Double> generate(String type, int slotCount, int targetSlot) {
-    Map<String, Double> valuations = new HashMap<>();
+  /**
+   * Same as {@link #generate(String, int, int)} but draws from the supplied generator, so that
+   * parallel replications can each use their own seeded stream instead of the shared one.
+   */
+  public SlotValuations generate(String type, int slotCount, int targetSlot, RandomGenerator rand) {
+    // Indexed by slot: values[0] is SLOT_1
+    double[] values = new double[slotCount];
 
     switch (type.toUpperCase()) {
       case "RICH":
-        for (int i = 1; i <= slotCount; i++) {
+        for (int i = 0; i < slotCount; i++) {
           if (rand.nextBoolean()) {
-            valuations.put("SLOT_" + i, 30.0 + rand.nextDouble() * 20.0);
+            values[i] = 30.0 + rand.nextDouble() * 20.0;
           }
         }
         break;
       case "POOR":
-        for (int i = 1; i <= slotCount; i++) {
+        for (int i = 0; i < slotCount; i++) {
           if (rand.nextBoolean()) {
-            valuations.put("SLOT_" + i, 5.0 + rand.nextDouble() * 10.0);
+            values[i] = 5.0 + rand.nextDouble() * 10.0;
           }
         }
         break;
@@ -37,37 +53,46 @@ public class ValuationGenerator {
         } else {
           slotWanted = rand.nextInt(slotCount) + 1;
         }
-        valuations.put("SLOT_" + slotWanted, 100.0);
+        values[slotWanted - 1] = 100.0;
         break;
       case "BUNDLE_PAIR":
-        valuations.put("SLOT_1", 25.0);
-        valuations.put("SLOT_2", 25.0);
+        putIfPresent(values, 0, 25.0);
+        putIfPresent(values, 1, 25.0);
         break;
       case "FLEXIBLE_PAIR":
-        valuations.put("SLOT_1", 30.0);
-        valuations.put("SLOT_2", 30.0);
+        putIfPresent(values, 0, 30.0);
+        putIfPresent(values, 1, 30.0);
         break;
       case "RANDOM":
         // Assign random values to multiple slots
-        for (int i = 1; i <= slotCount; i++) {
+        boolean anyValued = false;
+        for (int i = 0; i < slotCount; i++) {
           if (rand.nextDouble() > 0.5) {  // 50% chance per slot
-            valuations.put("SLOT_" + i, 10.0 + rand.nextDouble() * 20.0);
+            values[i] = 10.0 + rand.nextDouble() * 20.0;
+            anyValued = true;
           }
         }
         // Ensure at least one slot has a value
-        if (valuations.isEmpty() && slotCount > 0) {
-          int randomSlot = rand.nextInt(slotCount) + 1;
-          valuations.put("SLOT_" + randomSlot, 10.0 + rand.nextDouble() * 20.0);
+        if (!anyValued && slotCount > 0) {
+          int randomSlot = rand.nextInt(slotCount);
+          values[randomSlot] = 10.0 + rand.nextDouble() * 20.0;
         }
         break;
       default:
-        for (int i = 1; i <= slotCount; i++) {
+        for (int i = 0; i < slotCount; i++) {
           if (rand.nextDouble() > 0.6) {
-            valuations.put("SLOT_" + i, 10.0 + rand.nextDouble() * 20.0);
+            values[i] = 10.0 + rand.nextDouble() * 20.0;
           }
         }
     }
 
-    return valuations;
+    return SlotValuations.wrap(values);
+  }
+
+  // The fixed pair valuations target SLOT_1/SLOT_2, which may not exist in tiny scenarios
+  private static void putIfPresent(double[] values, int slot, double value) {
+    if (slot < values.length) {
+      values[slot] = value;
+    }
   }
 }
@@ -0,0 +1,166 @@
+package com.mtn.agent.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exact maximum social welfare over all allocations of the items, under the same accounting as
+ * the payoffs: an agent's welfare is the sum of its valuations for the items it holds.
+ * Unit-demand agents (see {@link BiddingStrategy#isUnitDemand()}) hold at most one item; all
+ * other agents, bundle bidders included, may hold any number.
+ *
+ * <p>Without unit-demand agents every item simply goes to its highest additive valuation. Each
+ * unit-demand agent can then only improve on that baseline through one item, so the optimum is
+ * the baseline plus a maximum-weight assignment of unit-demand agents to items, weighted by what
+ * they would add over the baseline. The assignment is solved with the Hungarian method, on the
+ * agents and items with a positive gain only.
+ */
+final class WelfareOptimizer {
+
+  private WelfareOptimizer() {
+  }
+
+  static double optimalWelfare(
+          List<String> itemIds,
+          Map<String, Map<String, Double>> agentValuations,
+          Set<String> unitDemandAgents) {
+
+    int items = itemIds.size();
+    double[] baseline = new double[items];
+    List<double[]> unitValues = new ArrayList<>();
+
+    for (Map.Entry<String, Map<String, Double>> entry : agentValuations.entrySet()) {
+      Map<String, Double> valuations = entry.getValue();
+      if (unitDemandAgents.contains(entry.getKey())) {
+        double[] values = new double[items];
+        for (int i = 0; i < items; i++) {
+          values[i] = valuations.getOrDefault(itemIds.get(i), 0.0);
+        }
+        unitValues.add(values);
+      } else {
+        for (int i = 0; i < items; i++) {
+          baseline[i] = Math.max(baseline[i], valuations.getOrDefault(itemIds.get(i), 0.0));
+        }
+      }
+    }
+
+    double welfare = 0.0;
+    for (double value : baseline) {
+      welfare += value;
+    }
+    return welfare + maxAssignment(gains(unitValues, baseline));
+  }
+
+  // What each unit-demand agent would add over the baseline, restricted to rows and columns
+  // that have a positive entry
+  private static double[][] gains(List<double[]> unitValues, double[] baseline) {
+    int items = baseline.length;
+    boolean[] usefulItem = new boolean[items];
+    List<double[]> rows = new ArrayList<>();
+
+    for (double[] values : unitValues) {
+      double[] gain = new double[items];
+      boolean useful = false;
+      for (int i = 0; i < items; i++) {
+        gain[i] = Math.max(0.0, values[i] - baseline[i]);
+        if (gain[i] > 0) {
+          usefulItem[i] = true;
+          useful = true;
+        }
+      }
+      if (useful) rows.add(gain);
+    }
+
+    int[] columns = new int[items];
+    int columnCount = 0;
+    for (int i = 0; i < items; i++) {
+      if (usefulItem[i]) columns[columnCount++] = i;
+    }
+
+    double[][] matrix = new double[rows.size()][columnCount];
+    for (int r = 0; r < rows.size(); r++) {
+      double[] gain = rows.get(r);
+      for (int c = 0; c < columnCount; c++) {
+        matrix[r][c] = gain[columns[c]];
+      }
+    }
+    return matrix;
+  }
+
+  /**
+   * Maximum total weight of a matching in a non-negative weight matrix, O(n²·m) for
+   * n = min(rows, columns).
+   */
+  static double maxAssignment(double[][] weights) {
+    int rows = weights.length;
+    if (rows == 0 || weights[0].length == 0) return 0.0;
+    int columns = weights[0].length;
+
+    // The method assigns every row, so put the smaller side on the rows. With non-negative
+    // weights a full assignment of the smaller side loses nothing against a partial one.
+    boolean transpose = rows > columns;
+    int n = transpose ? columns : rows;
+    int m = transpose ? rows : columns;
+
+    // 1-based potentials over costs = -weight; p[j] is the row assigned to column j
+    double[] u = new double[n + 1];
+    double[] v = new double[m + 1];
+    int[] p = new int[m + 1];
+    int[] way = new int[m + 1];
+    double[] minv = new double[m + 1];
+    boolean[] used = new boolean[m + 1];
+
+    for (int i = 1; i <= n; i++) {
+      p[0] = i;
+      int j0 = 0;
+      Arrays.fill(minv, Double.POSITIVE_INFINITY);
+      Arrays.fill(used, false);
+
+      do {
+        used[j0] = true;
+        int i0 = p[j0];
+        double delta = Double.POSITIVE_INFINITY;
+        int j1 = 0;
+        for (int j = 1; j <= m; j++) {
+          if (used[j]) continue;
+          double cost = -(transpose ? weights[j - 1][i0 - 1] : weights[i0 - 1][j - 1]);
+          double reduced = cost - u[i0] - v[j];
+          if (reduced < minv[j]) {
+            minv[j] = reduced;
+            way[j] = j0;
+          }
+          if (minv[j] < delta) {
+            delta = minv[j];
+            j1 = j;
+          }
+        }
+        for (int j = 0; j <= m; j++) {
+          if (used[j]) {
+            u[p[j]] += delta;
+            v[j] -= delta;
+          } else {
+            minv[j] -= delta;
+          }
+        }
+        j0 = j1;
+      } while (p[j0] != 0);
+
+      do {
+        int j1 = way[j0];
+        p[j0] = p[j1];
+        j0 = j1;
+      } while (j0 != 0);
+    }
+
+    double total = 0.0;
+    for (int j = 1; j <= m; j++) {
+      if (p[j] != 0) {
+        total += transpose ? weights[j - 1][p[j] - 1] : weights[p[j] - 1][j - 1];
+      }
+    }
+    return total;
+  }
+}
@@ -0,0 +1,138 @@
+package com.mtn.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bids recorded while epochs are being swapped must each be counted in exactly one epoch.
+ */
+class BidIntakeTest {
+
+  @Test
+  void countsAndSoleBiddersOfASingleEpoch() {
+    BidIntake intake = new BidIntake(4);
+    intake.record(0, 1, 10.0);
+    intake.record(1, 2, 20.0);
+    intake.record(2, 2, 21.0);
+
+    BidIntake.Epoch epoch = intake.swap();
+    assertEquals(2, epoch.touchedCount());
+    assertEquals(3, epoch.totalBids());
+    assertEquals(0, epoch.bidCount(0));
+    assertEquals(1, epoch.bidCount(1));
+    assertEquals(0, epoch.soleBidder(1));
+    assertEquals(10.0, epoch.soleAmount(1));
+    assertEquals(2, epoch.bidCount(2));
+
+    // The epoch that took over starts empty, and so does this one when it is reused
+    intake.record(3, 3, 30.0);
+    BidIntake.Epoch next = intake.swap();
+    assertEquals(1, next.totalBids());
+    assertEquals(3, next.soleBidder(3));
+    assertEquals(0, intake.swap().totalBids());
+  }
+
+  @Test
+  void everyBidLandsInExactlyOneEpochUnderContention() throws InterruptedException {
+    int slots = 2048;
+    int bidders = 8;
+    int bidsPerBidder = 200_000;
+    BidIntake intake = new BidIntake(slots);
+
+    // Each bid carries its sequence number as amount, so an epoch's sole bid can be traced back
+    int[][] slotOfBid = new int[bidders][bidsPerBidder];
+    for (int b = 0; b < bidders; b++) {
+      SplittableRandom random = new SplittableRandom(b);
+      for (int i = 0; i < bidsPerBidder; i++) {
+        // Mostly a few hot slots, so that some epochs see heavy contention and others single bids
+        slotOfBid[b][i] = random.nextInt(4) == 0 ? random.nextInt(8) : random.nextInt(slots);
+      }
+    }
+
+    long[] counted = new long[slots];
+    Set<Long> soleBids = new HashSet<>();
+    AtomicReference<AssertionError> failure = new AtomicReference<>();
+    AtomicBoolean done = new AtomicBoolean();
+    int[] swaps = new int[1];
+
+    Thread resolver = new Thread(() -> {
+      try {
+        while (!done.get()) {
+          tally(intake.swap(), slots, bidsPerBidder, slotOfBid, counted, soleBids);
+          swaps[0]++;
+        }
+        tally(intake.swap(), slots, bidsPerBidder, slotOfBid, counted, soleBids);
+      } catch (AssertionError e) {
+        failure.set(e);
+      }
+    });
+    resolver.start();
+
+    List<Thread> threads = new ArrayList<>();
+    for (int b = 0; b < bidders; b++) {
+      int bidder = b;
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < bidsPerBidder; i++) {
+          intake.record(bidder, slotOfBid[bidder][i], (double) bidder * bidsPerBidder + i);
+        }
+      });
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    done.set(true);
+    resolver.join();
+    if (failure.get() != null) throw failure.get();
+
+    long[] expected = new long[slots];
+    for (int[] bids : slotOfBid) {
+      for (int slot : bids) {
+        expected[slot]++;
+      }
+    }
+    for (int slot = 0; slot < slots; slot++) {
+      assertEquals(expected[slot], counted[slot], "slot " + slot);
+    }
+    assertTrue(swaps[0] > 1, "the resolver never swapped while bids were coming in");
+  }
+
+  // Runs on the resolver, while the epoch is still readable
+  private static void tally(BidIntake.Epoch epoch, int slots, int bidsPerBidder, int[][] slotOfBid,
+                            long[] counted, Set<Long> soleBids) {
+    boolean[] touched = new boolean[slots];
+    long total = 0;
+    for (int i = 0; i < epoch.touchedCount(); i++) {
+      int slot = epoch.touchedSlot(i);
+      assertFalse(touched[slot], "slot " + slot + " touched twice in one epoch");
+      touched[slot] = true;
+    }
+    for (int slot = 0; slot < slots; slot++) {
+      int count = epoch.bidCount(slot);
+      assertEquals(touched[slot], count > 0, "slot " + slot + " has bids but is not listed as touched");
+      counted[slot] += count;
+      total += count;
+
+      if (count == 1) {
+        long bid = (long) epoch.soleAmount(slot);
+        int bidder = (int) (bid / bidsPerBidder);
+        assertEquals(bidder, epoch.soleBidder(slot), "sole bidder of slot " + slot);
+        assertEquals(slot, slotOfBid[bidder][(int) (bid % bidsPerBidder)], "sole bid of slot " + slot);
+        assertTrue(soleBids.add(bid), "bid " + bid + " counted in two epochs");
+      }
+    }
+    assertEquals(total, epoch.totalBids());
+  }
+}
@@ -0,0 +1,163 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.SlotIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the bid log against a plain list of records, around chunk boundaries and across
+ * resumed scans.
+ */
+class BidLogTest {
+
+  // BidLog.CHUNK_SIZE
+  private static final int CHUNK = 1 << 13;
+
+  private static final String[] AGENTS = {"alice", "bob", "carol", "dave"};
+  private static final int SLOTS = 5;
+
+  private final BidLog log = new BidLog();
+  private final List<BidRecord> expected = new ArrayList<>();
+
+  @Test
+  void readsBackAcrossChunkBoundaries() {
+    fill(3 * CHUNK + 5, new Random(1));
+
+    assertEquals(expected.size(), log.size());
+    for (int chunk = 1; chunk <= 3; chunk++) {
+      int boundary = chunk * CHUNK;
+      for (int position = boundary - 2; position <= boundary + 1; position++) {
+        assertEquals(expected.get(position), log.get(position), "position " + position);
+      }
+    }
+    assertEquals(expected.get(0), log.get(0));
+    assertEquals(expected.get(expected.size() - 1), log.get(log.size() - 1));
+    assertThrows(IndexOutOfBoundsException.class, () -> log.get(log.size()));
+  }
+
+  @Test
+  void pagedScansSeeEveryBidOnce() {
+    fill(2 * CHUNK + 100, new Random(2));
+
+    // A page size that does not divide the chunk size, so pages straddle the boundaries
+    for (int limit : new int[]{1, 999, CHUNK, 5 * CHUNK}) {
+      List<BidRecord> seen = new ArrayList<>();
+      int cursor = 0;
+      while (cursor >= 0) {
+        cursor = log.scan(cursor, limit, BidFilter.ALL, seen::add);
+      }
+      assertEquals(expected, seen, "limit " + limit);
+      assertEquals(log.size(), ~cursor);
+    }
+  }
+
+  @Test
+  void filteredScansMatchTheFilter() {
+    fill(2 * CHUNK + 300, new Random(3));
+    int lastRound = expected.get(expected.size() - 1).round();
+
+    List<BidFilter> filters = List.of(
+            new BidFilter(null, null, "bob", null),
+            new BidFilter(null, null, null, SlotIds.id(2)),
+            new BidFilter(null, null, "carol", SlotIds.id(0)),
+            new BidFilter(lastRound / 3, lastRound / 2, null, null),
+            new BidFilter(lastRound / 2, null, "dave", SlotIds.id(4)),
+            new BidFilter(null, 1, null, null));
+
+    for (BidFilter filter : filters) {
+      List<BidRecord> seen = new ArrayList<>();
+      int cursor = 0;
+      while (cursor >= 0) {
+        cursor = log.scan(cursor, 777, filter, seen::add);
+      }
+      assertEquals(expected.stream().filter(filter::matches).toList(), seen, filter.toString());
+    }
+  }
+
+  @Test
+  void unknownAgentOrItemMatchesNothing() {
+    fill(100, new Random(4));
+
+    List<BidRecord> seen = new ArrayList<>();
+    assertEquals(~log.size(), log.scan(0, 10, new BidFilter(null, null, "mallory", null), seen::add));
+    assertEquals(~log.size(), log.scan(0, 10, new BidFilter(null, null, null, "ITEM_1"), seen::add));
+    assertTrue(seen.isEmpty());
+  }
+
+  @Test
+  void exhaustedCursorResumesWithLaterBids() {
+    Random random = new Random(5);
+    fill(CHUNK - 3, random);
+
+    List<BidRecord> seen = new ArrayList<>();
+    int cursor = log.scan(0, Integer.MAX_VALUE, BidFilter.ALL, seen::add);
+    assertEquals(~(CHUNK - 3), cursor);
+
+    // More bids arrive, across the first boundary; a tailing reader picks up where it stopped
+    fill(10, random);
+    cursor = log.scan(~cursor, Integer.MAX_VALUE, BidFilter.ALL, seen::add);
+    assertEquals(~(CHUNK + 7), cursor);
+    assertEquals(expected, seen);
+  }
+
+  @Test
+  void roundsWithoutBidsStartWhereTheNextOneDoes() {
+    int bob = log.encodeAgent("bob");
+    log.append(1, bob, 0, 1.0);
+    log.append(1, bob, 1, 2.0);
+    log.append(4, bob, 0, 3.0);
+
+    assertEquals(0, log.firstOfRound(1));
+    assertEquals(2, log.firstOfRound(2));
+    assertEquals(2, log.firstOfRound(4));
+    assertEquals(3, log.firstOfRound(5));
+
+    List<BidRecord> seen = new ArrayList<>();
+    log.scan(0, 10, new BidFilter(2, 3, null, null), seen::add);
+    assertTrue(seen.isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> log.append(3, bob, 0, 1.0));
+  }
+
+  @Test
+  void totalsMatchTheRecords() {
+    fill(CHUNK + 50, new Random(6));
+
+    BidLog.Totals byAgent = log.totalsByAgent();
+    for (int code = 0; code < log.agentCount(); code++) {
+      String name = log.agentName(code);
+      assertEquals(expected.stream().filter(bid -> bid.agentName().equals(name)).count(), byAgent.counts()[code]);
+    }
+
+    BidLog.Totals byRound = log.totalsByRound();
+    int lastRound = expected.get(expected.size() - 1).round();
+    assertEquals(lastRound + 1, byRound.counts().length);
+    for (int round = 1; round <= lastRound; round++) {
+      int r = round;
+      assertEquals(expected.stream().filter(bid -> bid.round() == r).count(), byRound.counts()[round]);
+    }
+  }
+
+  // Appends bids in rounds of a few at a time, mirroring them into the expected list
+  private void fill(int count, Random random) {
+    int round = expected.isEmpty() ? 1 : expected.get(expected.size() - 1).round();
+    for (int i = 0; i < count; i++) {
+      if (random.nextInt(8) == 0) {
+        round += 1 + random.nextInt(2);
+      }
+      String agent = AGENTS[random.nextInt(AGENTS.length)];
+      int slot = random.nextInt(SLOTS);
+      double amount = random.nextInt(10_000) / 100.0;
+      log.append(round, log.encodeAgent(agent), slot, amount);
+      expected.add(new BidRecord(round, agent, SlotIds.id(slot), amount));
+    }
+  }
+}
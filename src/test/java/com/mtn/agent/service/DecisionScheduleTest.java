@@ -0,0 +1,52 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.ScenarioData;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Letting only due agents decide must not change a run: agents that are skipped repeat their
+ * previous decision, which only holds if every change they care about marks them due. Each
+ * scenario is run with the schedule and with every agent deciding every round, and the two runs
+ * must leave the same bids and round statistics behind.
+ */
+class DecisionScheduleTest {
+
+  @Test
+  void eventDrivenRunsMatchDecidingEveryRound() {
+    assertSameRuns(Simulations.STRATEGIES, 200, new Random(19), false);
+  }
+
+  @Test
+  void roundDependentStrategiesMatchDecidingEveryRound() {
+    assertSameRuns(new String[]{"SNIPER", "FLEXIBLE"}, 100, new Random(23), false);
+    assertSameRuns(new String[]{"SNIPER", "FLEXIBLE", "MYOPIC"}, 100, new Random(29), false);
+  }
+
+  @Test
+  void earlyTerminationSeesTheSameRuns() {
+    assertSameRuns(Simulations.STRATEGIES, 100, new Random(31), true);
+  }
+
+  private static void assertSameRuns(String[] strategies, int scenarios, Random random, boolean earlyTermination) {
+    SimulationRunner eventDriven = Simulations.runner(true, earlyTermination);
+    SimulationRunner everyRound = Simulations.runner(false, earlyTermination);
+    for (long id = 1; id <= scenarios; id++) {
+      ScenarioData scenario = Simulations.randomScenario(id, random, strategies);
+      SimulationSession scheduled = eventDriven.prepareReplication(scenario, new SplittableRandom(id));
+      eventDriven.run(scheduled, SimulationMode.BATCH, false);
+      SimulationSession reference = everyRound.prepareReplication(scenario, new SplittableRandom(id));
+      everyRound.run(reference, SimulationMode.BATCH, false);
+
+      String label = "scenario " + id + " " + scenario.agents();
+      assertEquals(reference.getBidHistory(), scheduled.getBidHistory(), label);
+      assertEquals(reference.getStatsHistory(), scheduled.getStatsHistory(), label);
+      assertEquals(reference.getEquilibriumHistory(), scheduled.getEquilibriumHistory(), label);
+      assertEquals(reference.getTerminationReason(), scheduled.getTerminationReason(), label);
+    }
+  }
+}
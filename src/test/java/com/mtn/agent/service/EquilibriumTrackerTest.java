@@ -0,0 +1,90 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AuctionState;
+import com.mtn.agent.domain.BidFilter;
+import com.mtn.agent.domain.BidRecord;
+import com.mtn.agent.domain.EquilibriumRoundStat;
+import com.mtn.agent.domain.ScenarioData;
+import com.mtn.agent.domain.SlotIds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The tracker's per-round statistics must be exactly what the full analysis of the same auction
+ * state gives. Each run's bids are replayed round by round into a fresh auctioneer and every
+ * recorded {@link EquilibriumRoundStat} is compared against a recomputation from scratch.
+ */
+class EquilibriumTrackerTest {
+
+  private final EquilibriumAnalysisService analysis = new EquilibriumAnalysisService();
+
+  @Test
+  void matchesFullAnalysisOnRandomScenarios() {
+    SimulationRunner runner = Simulations.runner(true, true);
+    Random random = new Random(13);
+    for (long id = 1; id <= 150; id++) {
+      ScenarioData scenario = Simulations.randomScenario(id, random, Simulations.STRATEGIES);
+      SimulationSession session = runner.prepareReplication(scenario, new SplittableRandom(id));
+      runner.run(session, SimulationMode.BATCH, false);
+      assertMatchesFullAnalysis(scenario, session);
+    }
+  }
+
+  @Test
+  void matchesFullAnalysisWhenEveryAgentDecidesEveryRound() {
+    SimulationRunner runner = Simulations.runner(false, false);
+    Random random = new Random(17);
+    for (long id = 1; id <= 50; id++) {
+      ScenarioData scenario = Simulations.randomScenario(id, random, Simulations.STRATEGIES);
+      SimulationSession session = runner.prepareReplication(scenario, new SplittableRandom(id));
+      runner.run(session, SimulationMode.BATCH, false);
+      assertMatchesFullAnalysis(scenario, session);
+    }
+  }
+
+  private void assertMatchesFullAnalysis(ScenarioData scenario, SimulationSession session) {
+    String label = "scenario " + scenario.id();
+    List<AgentService> agents = session.getAgents();
+    Map<String, Map<String, Double>> valuations = session.valuations();
+    Map<String, Integer> indices = new HashMap<>();
+    for (AgentService agent : agents) {
+      indices.put(agent.getAgentId(), agent.getIndex());
+    }
+
+    AuctioneerService replay = new AuctioneerService();
+    replay.setRoundLogging(false);
+    replay.init(scenario.numberOfSlots(), scenario.epsilon());
+    replay.registerAgents(agents);
+
+    List<EquilibriumRoundStat> recorded = session.getEquilibriumHistory();
+    assertEquals(session.getStatsHistory().size(), recorded.size(), label);
+    for (EquilibriumRoundStat stat : recorded) {
+      int round = stat.round();
+      List<BidRecord> bids = new ArrayList<>();
+      session.bidLog().scan(0, Integer.MAX_VALUE, new BidFilter(round, round, null, null), bids::add);
+      for (BidRecord bid : bids) {
+        replay.receiveBid(indices.get(bid.agentName()), SlotIds.index(bid.itemId()), bid.amount());
+      }
+      replay.resolveRound();
+
+      AuctionState state = replay.getState();
+      var nash = analysis.checkNashEquilibrium(state, valuations, agents);
+      var pareto = analysis.calculateParetoEfficiency(state, valuations, agents);
+      EquilibriumRoundStat full = new EquilibriumRoundStat(
+              round,
+              nash.isNashEquilibrium(),
+              nash.agentsWhoCanImprove().size(),
+              pareto.efficiencyRatio(),
+              pareto.currentSocialWelfare());
+      assertEquals(full, stat, label + " round " + round);
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.ScenarioData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recovery of the scenario catalogue from its snapshot and write-ahead log after the kinds of
+ * damage a crash leaves behind.
+ */
+class ScenarioStoreTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  void replaysTheLog() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 100);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(1)));
+    record(store, written, new ScenarioEvent.Created(2L, "second", 2, 5, 0.5));
+    record(store, written, new ScenarioEvent.Deleted(2L));
+    store.close();
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    ScenarioStore reopened = open(loaded, 100);
+    assertEquals(written, loaded);
+    assertEquals(2, reopened.highestScenarioId());
+    assertEquals(1, reopened.highestAgentId());
+    reopened.close();
+  }
+
+  @Test
+  void cutsOffATruncatedTail() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 100);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(1)));
+    long good = Files.size(wal());
+    store.append(new ScenarioEvent.AgentAdded(1L, agent(2)));
+    store.close();
+
+    // Torn write: the last entry lost its final bytes
+    truncate(wal(), Files.size(wal()) - 3);
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    ScenarioStore reopened = open(loaded, 100);
+    assertEquals(written, loaded);
+    assertEquals(good, Files.size(wal()));
+
+    // The log is appended to again from the cut
+    record(reopened, written, new ScenarioEvent.AgentAdded(1L, agent(3)));
+    reopened.close();
+    Map<Long, ScenarioData> again = new HashMap<>();
+    open(again, 100).close();
+    assertEquals(written, again);
+  }
+
+  @Test
+  void cutsOffACorruptTail() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 100);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    long good = Files.size(wal());
+    store.append(new ScenarioEvent.Updated(1L, "renamed", 3, 10, 1.0));
+    store.close();
+
+    // Flip a bit in the payload of the last entry; its length and checksum are intact
+    byte[] bytes = Files.readAllBytes(wal());
+    bytes[bytes.length - 2] ^= 0x10;
+    Files.write(wal(), bytes);
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    open(loaded, 100).close();
+    assertEquals(written, loaded);
+    assertEquals("first", loaded.get(1L).name());
+    assertEquals(good, Files.size(wal()));
+  }
+
+  @Test
+  void discardsAnImpossibleLength() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 100);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    long good = Files.size(wal());
+    store.close();
+
+    // A header whose length runs past the end of the file
+    try (FileChannel channel = FileChannel.open(wal(), StandardOpenOption.APPEND)) {
+      channel.write(ByteBuffer.allocate(16).putInt(1 << 20).putInt(0).putLong(2).flip());
+    }
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    open(loaded, 100).close();
+    assertEquals(written, loaded);
+    assertEquals(good, Files.size(wal()));
+  }
+
+  @Test
+  void restoresFromTheSnapshotAndTheLogSinceIt() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 3);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(1)));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(2)));
+    store.compactIfDue(written.values());
+    assertEquals(0, Files.size(wal()));
+
+    record(store, written, new ScenarioEvent.AgentRemoved(1L, 1L));
+    store.close();
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    ScenarioStore reopened = open(loaded, 3);
+    assertEquals(written, loaded);
+    assertEquals(2, reopened.highestAgentId());
+    reopened.close();
+  }
+
+  @Test
+  void skipsLogEntriesTheSnapshotCovers() throws IOException {
+    Map<Long, ScenarioData> written = new HashMap<>();
+    ScenarioStore store = open(new HashMap<>(), 2);
+    record(store, written, new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(1)));
+    store.compactIfDue(written.values());
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(2)));
+    record(store, written, new ScenarioEvent.AgentAdded(1L, agent(3)));
+    byte[] beforeCompaction = Files.readAllBytes(wal());
+    store.compactIfDue(written.values());
+    store.close();
+
+    // Crash after the second snapshot was renamed into place but before the log was truncated.
+    // Replaying these entries again would add agents 2 and 3 twice.
+    Files.write(wal(), beforeCompaction);
+
+    Map<Long, ScenarioData> loaded = new HashMap<>();
+    ScenarioStore reopened = open(loaded, 100);
+    assertEquals(written, loaded);
+    assertEquals(List.of(1L, 2L, 3L), agentIds(loaded.get(1L)));
+
+    // Numbering carries on past the snapshot, so new entries are not mistaken for covered ones
+    record(reopened, written, new ScenarioEvent.AgentAdded(1L, agent(4)));
+    reopened.close();
+    Map<Long, ScenarioData> again = new HashMap<>();
+    open(again, 100).close();
+    assertEquals(List.of(1L, 2L, 3L, 4L), agentIds(again.get(1L)));
+  }
+
+  @Test
+  void disabledStoreKeepsNothing() throws IOException {
+    ScenarioStore store = new ScenarioStore();
+    store.enabled = false;
+    store.dir = dir.toString();
+    assertFalse(store.load(new HashMap<>()));
+    store.append(new ScenarioEvent.Created(1L, "first", 3, 10, 1.0));
+    assertFalse(Files.exists(wal()));
+  }
+
+  private ScenarioStore open(Map<Long, ScenarioData> scenarios, int snapshotEvery) {
+    ScenarioStore store = new ScenarioStore();
+    store.enabled = true;
+    store.dir = dir.toString();
+    store.snapshotEvery = snapshotEvery;
+    store.fsync = false;
+    store.load(scenarios);
+    assertTrue(Files.exists(wal()));
+    return store;
+  }
+
+  // Logs an event and then applies it, the way ScenarioService does
+  private static void record(ScenarioStore store, Map<Long, ScenarioData> scenarios, ScenarioEvent event) {
+    store.append(event);
+    event.applyTo(scenarios);
+  }
+
+  private static AgentData agent(long id) {
+    return new AgentData(id, "agent-" + id, "MYOPIC", "RANDOM", -1, -1);
+  }
+
+  private static List<Long> agentIds(ScenarioData scenario) {
+    return scenario.agents().stream().map(AgentData::id).toList();
+  }
+
+  private static void truncate(Path file, long size) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+    }
+  }
+
+  private Path wal() {
+    return dir.resolve("scenarios.wal");
+  }
+}
@@ -0,0 +1,54 @@
+package com.mtn.agent.service;
+
+import com.mtn.agent.domain.AgentData;
+import com.mtn.agent.domain.ScenarioData;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Runners wired by hand, without the container, and random scenarios for them to run.
+ */
+final class Simulations {
+
+  static final String[] STRATEGIES = {"MYOPIC", "SNIPER", "BUDGET", "BUNDLE", "FLEXIBLE"};
+  static final String[] VALUATIONS = {"RICH", "POOR", "FOCUSED", "BUNDLE_PAIR", "FLEXIBLE_PAIR", "RANDOM"};
+
+  private Simulations() {
+  }
+
+  /**
+   * A runner for replications: sequential decisions, no archive and no session registry.
+   */
+  static SimulationRunner runner(boolean eventDriven, boolean earlyTermination) {
+    SimulationRunner runner = new SimulationRunner();
+    runner.valGenerator = new ValuationGenerator();
+    runner.equilibriumAnalysisService = new EquilibriumAnalysisService();
+    runner.strategyRegistry = StrategyRegistry.of(new MyopicStrategy(), new SniperStrategy(),
+            new BudgetConstrainedStrategy(), new BundleStrategy(), new FlexibleStrategy());
+    runner.metrics = new AuctionMetrics();
+    runner.metrics.registry = new SimpleMeterRegistry();
+    runner.eventDrivenEnabled = eventDriven;
+    runner.earlyTerminationEnabled = earlyTermination;
+    return runner;
+  }
+
+  /**
+   * A scenario of a few slots and agents, drawing each agent's strategy from {@code strategies}.
+   */
+  static ScenarioData randomScenario(long id, Random random, String... strategies) {
+    int slots = 1 + random.nextInt(6);
+    int agentCount = 1 + random.nextInt(8);
+    List<AgentData> agents = new ArrayList<>();
+    for (int i = 0; i < agentCount; i++) {
+      String strategy = strategies[random.nextInt(strategies.length)];
+      double budget = strategy.equals("BUDGET") ? 20 + random.nextInt(80) : -1;
+      int target = random.nextInt(3) == 0 ? 1 + random.nextInt(slots) : -1;
+      agents.add(new AgentData((long) i + 1, "A" + i, strategy,
+              VALUATIONS[random.nextInt(VALUATIONS.length)], target, budget));
+    }
+    return new ScenarioData(id, "random-" + id, slots, 200, 0.5 + random.nextInt(4) * 0.5, agents);
+  }
+}
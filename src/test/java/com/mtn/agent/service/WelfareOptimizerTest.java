@@ -0,0 +1,125 @@
+package com.mtn.agent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the optimizer against exhaustive search over every allocation of small random instances.
+ */
+class WelfareOptimizerTest {
+
+  private static final double TOLERANCE = 1e-9;
+
+  @Test
+  void matchesBruteForceOnRandomInstances() {
+    Random random = new Random(7);
+    for (int instance = 0; instance < 500; instance++) {
+      int items = 1 + random.nextInt(5);
+      int agents = 1 + random.nextInt(5);
+
+      List<String> itemIds = new ArrayList<>();
+      for (int i = 0; i < items; i++) {
+        itemIds.add("SLOT_" + (i + 1));
+      }
+      Map<String, Map<String, Double>> valuations = new HashMap<>();
+      Set<String> unitDemand = new HashSet<>();
+      for (int a = 0; a < agents; a++) {
+        String agentId = "agent-" + a;
+        Map<String, Double> values = new HashMap<>();
+        for (String itemId : itemIds) {
+          // Leave some valuations out, and make ties likely
+          if (random.nextInt(4) > 0) {
+            values.put(itemId, (double) random.nextInt(20));
+          }
+        }
+        valuations.put(agentId, values);
+        if (random.nextBoolean()) {
+          unitDemand.add(agentId);
+        }
+      }
+
+      assertEquals(bruteForce(itemIds, valuations, unitDemand),
+              WelfareOptimizer.optimalWelfare(itemIds, valuations, unitDemand),
+              TOLERANCE, "instance " + instance);
+    }
+  }
+
+  @Test
+  void allUnitDemandIsAnAssignment() {
+    List<String> itemIds = List.of("SLOT_1", "SLOT_2");
+    Map<String, Map<String, Double>> valuations = Map.of(
+            "a", Map.of("SLOT_1", 10.0, "SLOT_2", 9.0),
+            "b", Map.of("SLOT_1", 8.0, "SLOT_2", 1.0));
+
+    // Greedy would give a SLOT_1 for 11 in total; the optimum is 9 + 8
+    assertEquals(17.0, WelfareOptimizer.optimalWelfare(itemIds, valuations, Set.of("a", "b")), TOLERANCE);
+  }
+
+  @Test
+  void maxAssignmentMatchesBruteForceOnRectangularMatrices() {
+    Random random = new Random(11);
+    for (int instance = 0; instance < 500; instance++) {
+      double[][] weights = new double[1 + random.nextInt(6)][1 + random.nextInt(6)];
+      for (double[] row : weights) {
+        for (int c = 0; c < row.length; c++) {
+          row[c] = random.nextInt(3) == 0 ? 0.0 : random.nextDouble() * 100;
+        }
+      }
+
+      assertEquals(bruteForceAssignment(weights, 0, new boolean[weights[0].length]),
+              WelfareOptimizer.maxAssignment(weights), TOLERANCE, "instance " + instance);
+    }
+  }
+
+  @Test
+  void emptyInstances() {
+    assertEquals(0.0, WelfareOptimizer.maxAssignment(new double[0][0]));
+    assertEquals(0.0, WelfareOptimizer.optimalWelfare(List.of("SLOT_1"), Map.of(), Set.of()));
+  }
+
+  // Tries every owner, or none, for every item
+  private static double bruteForce(List<String> itemIds, Map<String, Map<String, Double>> valuations,
+                                   Set<String> unitDemand) {
+    List<String> agents = new ArrayList<>(valuations.keySet());
+    return allocate(itemIds, 0, agents, valuations, unitDemand, new HashSet<>());
+  }
+
+  private static double allocate(List<String> itemIds, int item, List<String> agents,
+                                 Map<String, Map<String, Double>> valuations, Set<String> unitDemand,
+                                 Set<String> holding) {
+    if (item == itemIds.size()) return 0.0;
+
+    double best = allocate(itemIds, item + 1, agents, valuations, unitDemand, holding);
+    for (String agent : agents) {
+      boolean unit = unitDemand.contains(agent);
+      if (unit && holding.contains(agent)) continue;
+      if (unit) holding.add(agent);
+      double value = valuations.get(agent).getOrDefault(itemIds.get(item), 0.0);
+      best = Math.max(best, value + allocate(itemIds, item + 1, agents, valuations, unitDemand, holding));
+      if (unit) holding.remove(agent);
+    }
+    return best;
+  }
+
+  private static double bruteForceAssignment(double[][] weights, int row, boolean[] taken) {
+    if (row == weights.length) return 0.0;
+
+    double best = bruteForceAssignment(weights, row + 1, taken);
+    for (int c = 0; c < taken.length; c++) {
+      if (taken[c]) continue;
+      taken[c] = true;
+      best = Math.max(best, weights[row][c] + bruteForceAssignment(weights, row + 1, taken));
+      taken[c] = false;
+    }
+    return best;
+  }
+}